@@ -0,0 +1,35 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * NPNC: several producers and several consumers.
+ * The thread split can be changed with JMH's {@code -tg} option.
+ */
+public class ManyToManyBenchmark extends QueueBenchmark {
+
+    @Param({"ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Benchmark
+    @Group("manyToMany")
+    @GroupThreads(2)
+    public void offer(OfferCounters counters) {
+        doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("manyToMany")
+    @GroupThreads(2)
+    public Integer poll(PollCounters counters) {
+        return doPoll(counters);
+    }
+}
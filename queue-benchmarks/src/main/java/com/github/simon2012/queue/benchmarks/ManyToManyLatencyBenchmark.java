@@ -0,0 +1,32 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * NPNC round-trip latency: several producers and several consumers.
+ * The number of producers can be changed with JMH's {@code -t} option; there are always two
+ * consumers.
+ */
+@Threads(2)
+public class ManyToManyLatencyBenchmark extends RoundTripLatencyBenchmark {
+
+    @Param({"ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Override
+    int consumers() {
+        return 2;
+    }
+
+    @Benchmark
+    public Ping roundTrip(Client client) {
+        return transfer(client);
+    }
+}
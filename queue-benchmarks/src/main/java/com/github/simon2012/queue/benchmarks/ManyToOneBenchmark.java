@@ -0,0 +1,35 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * NP1C: several producers and one consumer.
+ * The thread split can be changed with JMH's {@code -tg} option.
+ */
+public class ManyToOneBenchmark extends QueueBenchmark {
+
+    @Param({"MpscArrayQueue", "ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(3)
+    public void offer(OfferCounters counters) {
+        doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("manyToOne")
+    @GroupThreads(1)
+    public Integer poll(PollCounters counters) {
+        return doPoll(counters);
+    }
+}
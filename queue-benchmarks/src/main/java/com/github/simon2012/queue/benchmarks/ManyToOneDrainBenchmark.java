@@ -0,0 +1,67 @@
+package com.github.simon2012.queue.benchmarks;
+
+import com.github.simon2012.queue.ConcurrentQueue;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * NP1C with a batching consumer: the consumer removes up to {@code batch} elements per
+ * {@link ConcurrentQueue#drain} call instead of polling one at a time. Compare {@code pollsMade}
+ * with {@link ManyToOneBenchmark}.
+ * The thread split can be changed with JMH's {@code -tg} option.
+ */
+public class ManyToOneDrainBenchmark extends QueueBenchmark {
+
+    @Param("MpscArrayQueue")
+    public String impl;
+
+    @Param("256")
+    public int batch;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Benchmark
+    @Group("manyToOneDrain")
+    @GroupThreads(3)
+    public void offer(OfferCounters counters) {
+        doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("manyToOneDrain")
+    @GroupThreads(1)
+    public void drain(PollCounters counters, Sink sink) {
+        final int drained = ((ConcurrentQueue<Integer>) queue).drain(sink, batch);
+        if (drained != 0) {
+            counters.pollsMade += drained;
+        } else {
+            counters.pollsFailed++;
+        }
+    }
+
+    /** Consumer handed to {@code drain}, created once per thread so the call does not allocate. */
+    @State(Scope.Thread)
+    public static class Sink implements Consumer<Integer> {
+        Blackhole blackhole;
+
+        @Setup
+        public void setup(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void accept(Integer e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * NP1C round-trip latency: several producers and one consumer.
+ * The number of producers can be changed with JMH's {@code -t} option.
+ */
+@Threads(3)
+public class ManyToOneLatencyBenchmark extends RoundTripLatencyBenchmark {
+
+    @Param({"MpscArrayQueue", "ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Override
+    int consumers() {
+        return 1;
+    }
+
+    @Benchmark
+    public Ping roundTrip(Client client) {
+        return transfer(client);
+    }
+}
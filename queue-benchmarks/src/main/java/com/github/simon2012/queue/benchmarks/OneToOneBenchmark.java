@@ -0,0 +1,35 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * 1P1C: one producer and one consumer.
+ * The thread split can be changed with JMH's {@code -tg} option.
+ */
+public class OneToOneBenchmark extends QueueBenchmark {
+
+    @Param({"SpscArrayQueue", "MpscArrayQueue", "ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public void offer(OfferCounters counters) {
+        doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("oneToOne")
+    @GroupThreads(1)
+    public Integer poll(PollCounters counters) {
+        return doPoll(counters);
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.simon2012.queue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 1P1C round-trip latency: one producer and one consumer.
+ */
+@Threads(1)
+public class OneToOneLatencyBenchmark extends RoundTripLatencyBenchmark {
+
+    @Param({"SpscArrayQueue", "MpscArrayQueue", "ArrayBlockingQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    @Override
+    String impl() {
+        return impl;
+    }
+
+    @Override
+    int consumers() {
+        return 1;
+    }
+
+    @Benchmark
+    public Ping roundTrip(Client client) {
+        return transfer(client);
+    }
+}
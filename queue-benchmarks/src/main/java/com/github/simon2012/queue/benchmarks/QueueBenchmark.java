@@ -0,0 +1,100 @@
+package com.github.simon2012.queue.benchmarks;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shared state for the producer/consumer group throughput benchmarks.
+ *
+ * <p>Every benchmark method performs a single {@code offer} or {@code poll} attempt, so the
+ * primary score counts attempts, including rejected offers and empty polls. Successful and failed
+ * attempts are reported separately through {@link OfferCounters} and {@link PollCounters}; the
+ * successful counts are the figures to compare across implementations. Latency is measured by
+ * {@link RoundTripLatencyBenchmark} instead, since timing single attempts would mostly time the
+ * cheap failed ones.
+ *
+ * <p>A fresh queue is created for every iteration so that an unbounded queue that fell behind in
+ * one iteration does not carry its backlog into the next.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public abstract class QueueBenchmark {
+
+    /** Shared element, so that producers do not measure boxing. */
+    static final Integer ELEMENT = 1;
+
+    @Param("1024")
+    public int capacity;
+
+    Queue<Integer> queue;
+
+    /** Returns the {@code impl} parameter of the concrete benchmark. */
+    abstract String impl();
+
+    @Setup(Level.Iteration)
+    public void createQueue() {
+        queue = Queues.create(impl(), capacity);
+    }
+
+    final void doOffer(OfferCounters counters) {
+        if (queue.offer(ELEMENT)) {
+            counters.offersMade++;
+        } else {
+            counters.offersFailed++;
+        }
+    }
+
+    final Integer doPoll(PollCounters counters) {
+        final Integer e = queue.poll();
+        if (e != null) {
+            counters.pollsMade++;
+        } else {
+            counters.pollsFailed++;
+        }
+        return e;
+    }
+
+    /** Per-producer counts of accepted and rejected offers. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class OfferCounters {
+        public long offersMade;
+        public long offersFailed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offersMade = 0;
+            offersFailed = 0;
+        }
+    }
+
+    /** Per-consumer counts of successful and empty polls. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class PollCounters {
+        public long pollsMade;
+        public long pollsFailed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pollsMade = 0;
+            pollsFailed = 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.simon2012.queue.benchmarks;
+
+import com.github.simon2012.queue.MpscArrayQueue;
+import com.github.simon2012.queue.SpscArrayQueue;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Creates the queue implementations named by the benchmarks' {@code impl} parameter.
+ */
+final class Queues {
+
+    private Queues() {
+    }
+
+    /**
+     * Creates a queue of the given implementation. {@link ConcurrentLinkedQueue} is unbounded and
+     * ignores {@code capacity}.
+     *
+     * @throws IllegalArgumentException if {@code impl} does not name a known implementation
+     */
+    static <E> Queue<E> create(String impl, int capacity) {
+        switch (impl) {
+            case "SpscArrayQueue":
+                return new SpscArrayQueue<>(capacity);
+            case "MpscArrayQueue":
+                return new MpscArrayQueue<>(capacity);
+            case "ArrayBlockingQueue":
+                return new ArrayBlockingQueue<>(capacity);
+            case "ConcurrentLinkedQueue":
+                return new ConcurrentLinkedQueue<>();
+            default:
+                throw new IllegalArgumentException("unknown queue implementation: " + impl);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.simon2012.queue.benchmarks;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Shared state for the end-to-end latency benchmarks.
+ *
+ * <p>Each benchmark thread acts as a producer: it offers its {@link Ping} to a shared request
+ * queue and spins until an echo thread, acting as the consumer, has moved the ping back through
+ * the benchmark thread's own response queue. Both queues are of the implementation under test,
+ * so {@link Mode#SampleTime} reports the p50/p99/p99.9 time for an element to travel through the
+ * queue twice, and only completed transfers are timed. Each producer has one element in flight,
+ * so this measures latency at low load rather than under saturation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public abstract class RoundTripLatencyBenchmark {
+
+    @Param("1024")
+    public int capacity;
+
+    Queue<Ping> requests;
+    private Thread[] echoes;
+    private volatile boolean running;
+
+    /** Returns the {@code impl} parameter of the concrete benchmark. */
+    abstract String impl();
+
+    /** Returns the number of echo threads consuming from the request queue. */
+    abstract int consumers();
+
+    @Setup(Level.Trial)
+    public void startEchoes() {
+        requests = Queues.create(impl(), capacity);
+        running = true;
+        echoes = new Thread[consumers()];
+        for (int i = 0; i < echoes.length; i++) {
+            echoes[i] = new Thread(this::echo, "echo-" + i);
+            echoes[i].setDaemon(true);
+            echoes[i].start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopEchoes() throws InterruptedException {
+        running = false;
+        for (Thread echo : echoes) {
+            echo.join();
+        }
+    }
+
+    private void echo() {
+        final Queue<Ping> requests = this.requests;
+        while (running) {
+            final Ping ping = requests.poll();
+            if (ping == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            while (!ping.responses.offer(ping)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    final Ping transfer(Client client) {
+        final Ping ping = client.ping;
+        while (!requests.offer(ping)) {
+            Thread.onSpinWait();
+        }
+        Ping response;
+        while ((response = client.responses.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        return response;
+    }
+
+    /**
+     * A benchmark thread's in-flight element. Only one echo thread handles it at a time, and the
+     * hand-offs through the request queue order their writes, so the response queue always sees
+     * a single producer.
+     */
+    public static final class Ping {
+        final Queue<Ping> responses;
+
+        Ping(Queue<Ping> responses) {
+            this.responses = responses;
+        }
+    }
+
+    /** Per-producer response queue and ping. */
+    @State(Scope.Thread)
+    public static class Client {
+        Queue<Ping> responses;
+        Ping ping;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkParams params) {
+            responses = Queues.create(params.getParam("impl"), Integer.parseInt(params.getParam("capacity")));
+            ping = new Ping(responses);
+        }
+    }
+}
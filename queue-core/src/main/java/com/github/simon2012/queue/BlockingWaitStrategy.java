@@ -0,0 +1,60 @@
+package com.github.simon2012.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks the consumer until a producer signals it. Uses no CPU while idle and works with virtual
+ * threads, since it relies on {@link LockSupport} rather than monitors. Every offer pays for a
+ * full fence and a read of the waiter field, and wakes the consumer with an unpark if it is
+ * parked.
+ *
+ * <p>Supports a single waiting consumer, which is all a {@link ConcurrentQueue} allows, so an
+ * instance binds to the first queue that idles on it and cannot be shared with another queue.
+ */
+public final class BlockingWaitStrategy implements WaitStrategy {
+
+    private static final VarHandle QUEUE;
+
+    static {
+        try {
+            QUEUE = MethodHandles.lookup().findVarHandle(BlockingWaitStrategy.class, "queue", ConcurrentQueue.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** The queue this strategy is bound to, or null before it first idles. */
+    private volatile ConcurrentQueue<?> queue;
+    private volatile Thread waiter;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if this strategy is already bound to another queue
+     */
+    @Override
+    public void idle(ConcurrentQueue<?> queue, int idleCount) {
+        if (this.queue != queue && !QUEUE.compareAndSet(this, null, queue)) {
+            throw new IllegalStateException("wait strategy is already used by another queue");
+        }
+        waiter = Thread.currentThread();
+        // Pairs with the fence in signal(): either the producer sees the waiter or this thread
+        // sees the element.
+        VarHandle.fullFence();
+        if (queue.relaxedPeek() == null) {
+            LockSupport.park(this);
+        }
+        waiter = null;
+    }
+
+    @Override
+    public void signal() {
+        VarHandle.fullFence();
+        final Thread t = waiter;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+}
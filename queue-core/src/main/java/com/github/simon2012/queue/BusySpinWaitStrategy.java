@@ -0,0 +1,13 @@
+package com.github.simon2012.queue;
+
+/**
+ * Spins on the queue without ever giving up the CPU. Lowest wake-up latency; use only when the
+ * consumer has a core to itself.
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void idle(ConcurrentQueue<?> queue, int idleCount) {
+        Thread.onSpinWait();
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.simon2012.queue;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts elements of a {@link MappedQueue} to and from their stored form.
+ *
+ * <p>Both directions work directly on the memory-mapped segment: {@link #encode} writes into the
+ * file and {@link #decode} reads from it, so no intermediate byte arrays are involved unless the
+ * codec creates them. The buffers passed in are reused for every call and must not be retained.
+ *
+ * @param <E> the element type
+ */
+public interface Codec<E> {
+
+    /** Returns the exact number of bytes {@link #encode} will write for {@code e}. */
+    int encodedLength(E e);
+
+    /**
+     * Writes {@code e} to {@code dst}, starting at its position. The buffer's limit is set to the
+     * end of the record, so exactly {@link #encodedLength(Object) encodedLength(e)} bytes remain.
+     */
+    void encode(E e, ByteBuffer dst);
+
+    /**
+     * Reads an element from the bytes between the position and the limit of {@code src}, which
+     * is a view of the mapped segment.
+     */
+    E decode(ByteBuffer src);
+}
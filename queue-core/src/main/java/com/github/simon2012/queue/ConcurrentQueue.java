@@ -0,0 +1,93 @@
+package com.github.simon2012.queue;
+
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * A bounded {@link Queue} with a fixed producer/consumer threading contract and a batch
+ * consumer API.
+ *
+ * <p>Implementations document which methods belong to the producer side and which to the
+ * consumer side, and how many threads may call each. {@link #size()} and {@link #isEmpty()} may
+ * be called from any thread and return a best-effort snapshot.
+ *
+ * @param <E> the element type
+ */
+public interface ConcurrentQueue<E> extends Queue<E> {
+
+    /** Returns the number of elements this queue can hold. */
+    int capacity();
+
+    /**
+     * Removes up to {@code limit} elements and passes each to {@code consumer} in queue order.
+     * This is a consumer-side method. It stops early rather than waiting when the next element is
+     * not available, so it may return fewer than {@code limit} even if producers are mid-offer.
+     *
+     * @return the number of elements removed
+     * @throws NullPointerException if {@code consumer} is null
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    int drain(Consumer<? super E> consumer, int limit);
+
+    /**
+     * Like {@link #poll}, but returns null instead of waiting when a producer has claimed the
+     * next slot and not yet published its element, so it may return null while {@link #isEmpty}
+     * is false. This is a consumer-side method.
+     */
+    E relaxedPoll();
+
+    /**
+     * Like {@link #peek}, but returns null instead of waiting when a producer has claimed the
+     * next slot and not yet published its element. This is a consumer-side method.
+     */
+    E relaxedPeek();
+
+    /**
+     * Returns the strategy {@link #awaitNotEmpty} and {@link #take} use while no element is
+     * available.
+     */
+    WaitStrategy waitStrategy();
+
+    /**
+     * Returns a live view of this queue's activity.
+     *
+     * @throws IllegalStateException if the queue was created without metrics enabled
+     */
+    QueueMetrics metrics();
+
+    /**
+     * Waits, using the queue's {@link WaitStrategy}, until the next element is available to
+     * {@link #relaxedPoll}. A producer descheduled between claiming a slot and publishing into it
+     * is therefore waited for with the strategy too, rather than by spinning. This is a
+     * consumer-side method, typically followed by {@link #drain}.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    default void awaitNotEmpty() throws InterruptedException {
+        final WaitStrategy waitStrategy = waitStrategy();
+        int idleCount = 0;
+        while (relaxedPeek() == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            waitStrategy.idle(this, idleCount);
+            if (idleCount < Integer.MAX_VALUE) {
+                idleCount++;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the head of this queue, waiting with the queue's {@link WaitStrategy}
+     * if it is empty. This is a consumer-side method.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    default E take() throws InterruptedException {
+        E e;
+        while ((e = relaxedPoll()) == null) {
+            awaitNotEmpty();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.simon2012.queue;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A bounded queue of primitive {@code int} values that never boxes.
+ *
+ * <p>Implementations document which methods belong to the producer side and which to the
+ * consumer side, and how many threads may call each. {@link #size()} and {@link #isEmpty()} may
+ * be called from any thread and return a best-effort snapshot.
+ */
+public interface IntQueue {
+
+    /** Returns the number of values this queue can hold. */
+    int capacity();
+
+    /** Returns the number of values in this queue. */
+    int size();
+
+    /** Returns true if this queue contains no values. */
+    boolean isEmpty();
+
+    /**
+     * Appends {@code e} if there is room. This is a producer-side method.
+     *
+     * @return true if the value was added, false if the queue is full
+     */
+    boolean offer(int e);
+
+    /**
+     * Removes and returns the head of this queue, or returns {@code defaultValue} if it is empty.
+     * This is a consumer-side method.
+     */
+    int pollOrDefault(int defaultValue);
+
+    /**
+     * Returns the head of this queue without removing it, or {@code defaultValue} if it is empty.
+     * This is a consumer-side method.
+     */
+    int peekOrDefault(int defaultValue);
+
+    /**
+     * Removes up to {@code limit} values and passes each to {@code consumer} in queue order.
+     * This is a consumer-side method. It stops early rather than waiting when the next value is
+     * not available, so it may return fewer than {@code limit} even if producers are mid-offer.
+     *
+     * @return the number of values removed
+     * @throws NullPointerException if {@code consumer} is null
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    int drain(IntConsumer consumer, int limit);
+}
@@ -0,0 +1,491 @@
+package com.github.simon2012.queue;
+
+import static com.github.simon2012.queue.MappedSegment.DATA_OFFSET;
+import static com.github.simon2012.queue.MappedSegment.END_OF_SEGMENT;
+import static com.github.simon2012.queue.MappedSegment.RECORD_HEADER_LENGTH;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A persistent single-producer/single-consumer queue stored in memory-mapped segment files.
+ *
+ * <p>Elements are serialized by a {@link Codec} straight into the mapped file and decoded
+ * straight out of it. Each segment keeps the producer and consumer positions in its own header,
+ * so {@link #open} recovers the unconsumed elements by reading the segment headers rather than
+ * replaying the records. When a record does not fit in the current segment the producer rolls
+ * over to a new one, and the consumer deletes each segment once it has moved past it.
+ *
+ * <p>Exactly one thread may call the producer methods ({@link #offer}, {@link #add},
+ * {@link #force}) and exactly one thread may call the consumer methods ({@link #poll},
+ * {@link #peek}, {@link #remove}, {@link #clear}). {@link #size} and {@link #isEmpty} may be
+ * called from any thread. {@link #open} locks the directory, so at most one queue instance, in
+ * this or any other process, has it open at a time. Once the queue is closed the producer and
+ * consumer methods throw {@link IllegalStateException}.
+ *
+ * <p>Written records reach the operating system's page cache immediately and therefore survive
+ * a crash of the process. To also survive a crash of the machine, the producer flushes each
+ * segment to the storage device when it rolls over and {@link #force} flushes the current one.
+ * Consumer progress is never flushed explicitly: after a crash of the process the element being
+ * consumed at the time may be delivered again, and after a crash of the machine any number of
+ * already consumed elements may be, back to wherever the operating system last wrote the
+ * consumer's segment header out.
+ *
+ * <p>Null elements are rejected. {@link #iterator} and the {@link java.util.Collection} methods
+ * built on it ({@link #contains}, {@link #containsAll}, {@link #toArray()}) are consumer-side
+ * methods and decode every element they visit. {@link #remove(Object)}, {@link #removeAll},
+ * {@link #retainAll} and {@link Iterator#remove} are not supported and throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <E> the element type
+ */
+public final class MappedQueue<E> extends AbstractQueue<E> implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = "queue.lock";
+    private static final VarHandle PRODUCED;
+    private static final VarHandle CONSUMED;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PRODUCED = lookup.findVarHandle(MappedQueue.class, "produced", long.class);
+            CONSUMED = lookup.findVarHandle(MappedQueue.class, "consumed", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Codec<E> codec;
+    /** Holds the lock on the directory's lock file until the queue is closed. */
+    private final FileChannel lock;
+    private volatile boolean closed;
+
+    private MappedSegment producerSegment;
+    private int producerPosition;
+    private int producerSegmentCount;
+    /** Elements offered since open, plus those recovered. Only the producer writes it. */
+    private long produced;
+
+    private MappedSegment consumerSegment;
+    private int consumerPosition;
+    private int consumerSegmentCount;
+    /** Elements removed since open. Only the consumer writes it. */
+    private long consumed;
+
+    private MappedQueue(Path directory, int segmentSize, Codec<E> codec, FileChannel lock,
+            List<MappedSegment> segments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        this.lock = lock;
+
+        enterConsumerSegment(segments.get(0));
+
+        final MappedSegment tail = segments.get(segments.size() - 1);
+        long recovered = 0;
+        for (MappedSegment segment : segments) {
+            final long producerState = recoverProducerState(segment);
+            final int position = MappedSegment.position(producerState);
+            if (segment != tail && position < segment.size && segment.recordLengthAt(position) != END_OF_SEGMENT) {
+                // The producer moved on without the end marker reaching the file; without it
+                // the consumer would wait at this position forever.
+                segment.publishRecordLength(position, END_OF_SEGMENT);
+            }
+            recovered += MappedSegment.count(producerState) - MappedSegment.count(segment.consumerState());
+        }
+        produced = recovered;
+
+        final long tailState = tail.producerState();
+        producerSegment = tail;
+        producerPosition = MappedSegment.position(tailState);
+        producerSegmentCount = MappedSegment.count(tailState);
+        if (producerPosition < tail.size && tail.recordLengthAt(producerPosition) == END_OF_SEGMENT) {
+            // Crashed between marking the end of the tail and creating its successor.
+            rollOver(tail);
+        }
+        // Move past and retry deleting segments a previous instance consumed but could not delete.
+        nextRecordLength();
+    }
+
+    /**
+     * Steps the producer state of {@code segment} over any record whose length was published
+     * just before a crash but is not yet covered by the header, rather than overwriting it, and
+     * returns the committed state.
+     */
+    private static long recoverProducerState(MappedSegment segment) {
+        final long state = segment.producerState();
+        int position = MappedSegment.position(state);
+        int count = MappedSegment.count(state);
+        int recordLength;
+        while (position < segment.size && (recordLength = segment.recordLengthAt(position)) > 0) {
+            position = (int) MappedSegment.recordEnd(position, recordLength);
+            count++;
+        }
+        segment.producerCommit(position, count);
+        return segment.producerState();
+    }
+
+    /**
+     * Opens the queue stored in {@code directory}, creating the directory and an empty first
+     * segment if needed. Unconsumed elements left by a previous instance are available
+     * immediately.
+     *
+     * @param segmentSize size in bytes of newly created segment files, rounded up to a multiple
+     *        of 8; it bounds the largest element that can be stored
+     * @throws IllegalArgumentException if {@code segmentSize} cannot hold a single record
+     * @throws IOException if the directory is open in another queue instance, if the directory
+     *         or a segment file cannot be read or created, or if it contains a file that is not
+     *         a segment. The last segment is exempt when it has
+     *         neither a header nor records, which is what a crash while creating it leaves
+     *         behind; it is created afresh.
+     */
+    public static <E> MappedQueue<E> open(Path directory, int segmentSize, Codec<E> codec) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        Objects.requireNonNull(codec, "codec");
+        if (segmentSize <= DATA_OFFSET + RECORD_HEADER_LENGTH || segmentSize > Integer.MAX_VALUE - 7) {
+            throw new IllegalArgumentException("invalid segment size: " + segmentSize);
+        }
+        final int alignedSegmentSize = (segmentSize + 7) & ~7;
+        Files.createDirectories(directory);
+        final FileChannel lock = lock(directory);
+        try {
+            return open(directory, alignedSegmentSize, codec, lock);
+        } catch (IOException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
+    }
+
+    private static <E> MappedQueue<E> open(Path directory, int alignedSegmentSize, Codec<E> codec, FileChannel lock)
+            throws IOException {
+        final SortedMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.put(parseSequence(file), file);
+            }
+        }
+        final List<MappedSegment> segments = new ArrayList<>();
+        for (Map.Entry<Long, Path> entry : files.entrySet()) {
+            final long sequence = entry.getKey();
+            final Path file = entry.getValue();
+            if (sequence == files.lastKey() && MappedSegment.isUninitialized(file)) {
+                Files.delete(file);
+                segments.add(MappedSegment.create(directory, sequence, alignedSegmentSize));
+            } else {
+                segments.add(MappedSegment.open(file, sequence));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(MappedSegment.create(directory, 0, alignedSegmentSize));
+        }
+        for (int i = 1; i < segments.size(); i++) {
+            segments.get(i - 1).next = segments.get(i);
+        }
+        return new MappedQueue<>(directory, alignedSegmentSize, codec, lock, segments);
+    }
+
+    /**
+     * Opens the directory's lock file and locks it, returning the channel that holds the lock.
+     *
+     * @throws IOException if another queue instance, in this or another process, holds the lock
+     */
+    private static FileChannel lock(Path directory) throws IOException {
+        final FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        boolean locked = false;
+        try {
+            locked = channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            // Held by another queue instance in this process.
+        } finally {
+            if (!locked) {
+                channel.close();
+            }
+        }
+        if (!locked) {
+            throw new IOException("queue directory is already open: " + directory);
+        }
+        return channel;
+    }
+
+    private static long parseSequence(Path file) throws IOException {
+        final String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("not a queue segment: " + file, e);
+        }
+    }
+
+    /**
+     * Appends {@code e}, rolling over to a new segment if the current one is full. Always
+     * returns true.
+     *
+     * @throws IllegalArgumentException if the encoded element does not fit in an empty segment
+     * @throws UncheckedIOException if a new segment file cannot be created
+     * @throws IllegalStateException if the queue is closed
+     */
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "e");
+        ensureOpen();
+        final int payloadLength = codec.encodedLength(e);
+        if (payloadLength < 0 || payloadLength > MappedSegment.maxPayload(segmentSize)) {
+            throw new IllegalArgumentException("encoded length " + payloadLength
+                    + " does not fit in a segment of " + segmentSize + " bytes");
+        }
+        final int recordLength = RECORD_HEADER_LENGTH + payloadLength;
+        MappedSegment segment = producerSegment;
+        if (MappedSegment.recordEnd(producerPosition, recordLength) > segment.size) {
+            try {
+                segment = rollOver(segment);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        final int position = producerPosition;
+        final ByteBuffer dst = segment.producerView;
+        dst.clear();
+        dst.position(position + RECORD_HEADER_LENGTH);
+        dst.limit(position + recordLength);
+        codec.encode(e, dst);
+        segment.publishRecordLength(position, recordLength);
+
+        producerPosition = (int) MappedSegment.recordEnd(position, recordLength);
+        segment.producerCommit(producerPosition, ++producerSegmentCount);
+        PRODUCED.setRelease(this, produced + 1);
+        return true;
+    }
+
+    private MappedSegment rollOver(MappedSegment segment) throws IOException {
+        // Seal the outgoing segment and flush it before its successor exists, so that a crash
+        // at any point leaves either no successor or a predecessor that is durably ended.
+        if (producerPosition < segment.size) {
+            segment.publishRecordLength(producerPosition, END_OF_SEGMENT);
+        }
+        segment.force();
+        final MappedSegment next = MappedSegment.create(directory, segment.sequence + 1, segmentSize);
+        segment.next = next;
+        producerSegment = next;
+        producerPosition = DATA_OFFSET;
+        producerSegmentCount = 0;
+        return next;
+    }
+
+    /**
+     * @throws IllegalStateException if the queue is closed
+     */
+    @Override
+    public E poll() {
+        ensureOpen();
+        final int recordLength = nextRecordLength();
+        if (recordLength == 0) {
+            return null;
+        }
+        final MappedSegment segment = consumerSegment;
+        final int position = consumerPosition;
+        final E e = decode(segment, position, recordLength);
+        consumerPosition = (int) MappedSegment.recordEnd(position, recordLength);
+        segment.consumerCommit(consumerPosition, ++consumerSegmentCount);
+        CONSUMED.setRelease(this, consumed + 1);
+        return e;
+    }
+
+    /**
+     * @throws IllegalStateException if the queue is closed
+     */
+    @Override
+    public E peek() {
+        ensureOpen();
+        final int recordLength = nextRecordLength();
+        return recordLength == 0 ? null : decode(consumerSegment, consumerPosition, recordLength);
+    }
+
+    /**
+     * Returns the length of the record at the consumer position, moving on to the next segment
+     * first if the producer has rolled over, or 0 if no record has been published yet.
+     */
+    private int nextRecordLength() {
+        while (true) {
+            final MappedSegment segment = consumerSegment;
+            final int position = consumerPosition;
+            final int recordLength = position < segment.size ? segment.recordLengthAt(position) : END_OF_SEGMENT;
+            if (recordLength != END_OF_SEGMENT) {
+                return recordLength;
+            }
+            final MappedSegment next = segment.next;
+            if (next == null) {
+                return 0;
+            }
+            enterConsumerSegment(next);
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException ignored) {
+                // Some platforms refuse to delete a mapped file. The segment is fully consumed, so
+                // a later open skips over it and retries the delete.
+            }
+        }
+    }
+
+    /**
+     * Makes {@code segment} the consumer's, resuming from its committed consumer state: a
+     * segment left behind by an earlier instance may already be partly or fully consumed.
+     */
+    private void enterConsumerSegment(MappedSegment segment) {
+        final long state = segment.consumerState();
+        consumerSegment = segment;
+        consumerPosition = MappedSegment.position(state);
+        consumerSegmentCount = MappedSegment.count(state);
+    }
+
+    private E decode(MappedSegment segment, int position, int recordLength) {
+        final ByteBuffer src = segment.consumerView;
+        src.clear();
+        src.position(position + RECORD_HEADER_LENGTH);
+        src.limit(position + recordLength);
+        return codec.decode(src);
+    }
+
+    @Override
+    public int size() {
+        final long c = (long) CONSUMED.getAcquire(this);
+        final long p = (long) PRODUCED.getAcquire(this);
+        return (int) Math.max(0, Math.min(p - c, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Flushes the records written to the current segment to the storage device; earlier
+     * segments were flushed when the producer rolled over from them. This is a producer-side
+     * method and does not make consumer progress durable.
+     *
+     * @throws IllegalStateException if the queue is closed
+     */
+    public void force() {
+        ensureOpen();
+        producerSegment.force();
+    }
+
+    /**
+     * Flushes the current segment to the storage device and releases the directory lock. Call
+     * it once both the producer and the consumer have stopped; closing an already closed queue
+     * does nothing. The mappings are released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            producerSegment.force();
+        } finally {
+            lock.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("queue is closed: " + directory);
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements from the head of the queue, in
+     * queue order, that decodes each element as it reaches it and sees elements offered after
+     * it was created, but not those the consumer removes before the iterator reaches them. This
+     * is a consumer-side method; the iterator does not support {@link Iterator#remove}.
+     *
+     * @throws IllegalStateException if the queue is closed
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ensureOpen();
+        return new Itr();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[directory=" + directory + ", size=" + size() + "]";
+    }
+
+    private final class Itr implements Iterator<E> {
+        private MappedSegment segment = consumerSegment;
+        private int position = consumerPosition;
+        private E next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final E e = next;
+            next = null;
+            return e;
+        }
+
+        /**
+         * Decodes the record at the iterator's position, following the segments as the consumer
+         * does, or returns null at the first unpublished record. Catches up with the consumer
+         * first if it has moved past the iterator.
+         */
+        private E advance() {
+            if (segment.sequence < consumerSegment.sequence
+                    || (segment == consumerSegment && position < consumerPosition)) {
+                segment = consumerSegment;
+                position = consumerPosition;
+            }
+            while (true) {
+                final int recordLength = position < segment.size ? segment.recordLengthAt(position) : END_OF_SEGMENT;
+                if (recordLength != END_OF_SEGMENT) {
+                    if (recordLength == 0) {
+                        return null;
+                    }
+                    final E e = decode(segment, position, recordLength);
+                    position = (int) MappedSegment.recordEnd(position, recordLength);
+                    return e;
+                }
+                final MappedSegment next = segment.next;
+                if (next == null) {
+                    return null;
+                }
+                segment = next;
+                position = DATA_OFFSET;
+            }
+        }
+    }
+}
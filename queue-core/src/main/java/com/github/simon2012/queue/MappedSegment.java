@@ -0,0 +1,182 @@
+package com.github.simon2012.queue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped segment file of a {@link MappedQueue}.
+ *
+ * <p>Layout, little-endian, every field 8-byte aligned:
+ * <pre>
+ *   0   magic
+ *   64  producer state: produced count in the high int, producer position in the low int
+ *   128 consumer state: consumed count in the high int, consumer position in the low int
+ *   192 records: int record length (header plus payload), payload, padding to a multiple of 8
+ * </pre>
+ * A zero record length marks the first unwritten record and {@link #END_OF_SEGMENT} marks the
+ * point where the producer rolled over to the next segment. Record lengths are published with
+ * release stores after the payload, so a reader that observes one also observes the payload.
+ *
+ * <p>Each side's position and count share one aligned long so that a commit is a single store
+ * and a crash can never leave one updated without the other. The magic is written last, so a
+ * file without it was never handed out and holds no records.
+ */
+final class MappedSegment {
+
+    static final long MAGIC = 0x3130_5145_5551_4D53L;
+    static final int PRODUCER_STATE_OFFSET = 64;
+    static final int CONSUMER_STATE_OFFSET = 128;
+    static final int DATA_OFFSET = 192;
+    static final int RECORD_HEADER_LENGTH = 4;
+    static final int END_OF_SEGMENT = -1;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    final long sequence;
+    final Path file;
+    final int size;
+    /** Producer-owned view handed to {@link Codec#encode}. */
+    final ByteBuffer producerView;
+    /** Consumer-owned view handed to {@link Codec#decode}. */
+    final ByteBuffer consumerView;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The segment the producer rolled over to. It is set after {@link #END_OF_SEGMENT} is
+     * published, so a reader that sees the marker while this is still null must retry later.
+     */
+    volatile MappedSegment next;
+
+    private MappedSegment(long sequence, Path file, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.size = buffer.capacity();
+        this.buffer = buffer;
+        this.producerView = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.consumerView = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Creates and maps a new, empty segment file of {@code size} bytes. */
+    static MappedSegment create(Path directory, long sequence, int size) throws IOException {
+        final Path file = directory.resolve(fileName(sequence));
+        final MappedSegment segment = new MappedSegment(sequence, file,
+                map(file, size, StandardOpenOption.CREATE_NEW));
+        segment.producerCommit(DATA_OFFSET, 0);
+        segment.consumerCommit(DATA_OFFSET, 0);
+        LONG.setRelease(segment.buffer, 0, MAGIC);
+        return segment;
+    }
+
+    /**
+     * Returns whether {@code file} is a segment whose creation was interrupted before it was
+     * initialized: it has no magic and no records, either because it is too short to hold
+     * them or because they read as zero.
+     */
+    static boolean isUninitialized(Path file) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(DATA_OFFSET + RECORD_HEADER_LENGTH)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends.
+            }
+        }
+        final int length = header.position();
+        return (length < Long.BYTES || header.getLong(0) == 0)
+                && (length < header.capacity() || header.getInt(DATA_OFFSET) == 0);
+    }
+
+    /** Maps an existing segment file. */
+    static MappedSegment open(Path file, long sequence) throws IOException {
+        final MappedSegment segment = new MappedSegment(sequence, file, map(file, -1));
+        if (segment.size < DATA_OFFSET || (long) LONG.getAcquire(segment.buffer, 0) != MAGIC) {
+            throw new IOException("not a queue segment: " + file);
+        }
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path file, int size, StandardOpenOption... extra) throws IOException {
+        final StandardOpenOption[] options = new StandardOpenOption[extra.length + 2];
+        options[0] = StandardOpenOption.READ;
+        options[1] = StandardOpenOption.WRITE;
+        System.arraycopy(extra, 0, options, 2, extra.length);
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            final long length = size < 0 ? channel.size() : size;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("segment too large: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+
+    static String fileName(long sequence) {
+        return String.format("%020d.seg", sequence);
+    }
+
+    /**
+     * Returns the position just past a record of {@code recordLength} bytes starting at
+     * {@code position}, rounded up to the record alignment.
+     */
+    static long recordEnd(int position, int recordLength) {
+        return ((long) position + recordLength + 7) & ~7L;
+    }
+
+    /** Returns the largest payload a segment of {@code size} bytes can hold. */
+    static int maxPayload(int size) {
+        return size - DATA_OFFSET - RECORD_HEADER_LENGTH;
+    }
+
+    int recordLengthAt(int position) {
+        return (int) INT.getAcquire(buffer, position);
+    }
+
+    void publishRecordLength(int position, int recordLength) {
+        INT.setRelease(buffer, position, recordLength);
+    }
+
+    /** Returns the producer position and produced count packed as for {@link #state}. */
+    long producerState() {
+        return (long) LONG.getAcquire(buffer, PRODUCER_STATE_OFFSET);
+    }
+
+    void producerCommit(int position, int producedCount) {
+        LONG.setRelease(buffer, PRODUCER_STATE_OFFSET, state(position, producedCount));
+    }
+
+    /** Returns the consumer position and consumed count packed as for {@link #state}. */
+    long consumerState() {
+        return (long) LONG.getAcquire(buffer, CONSUMER_STATE_OFFSET);
+    }
+
+    void consumerCommit(int position, int consumedCount) {
+        LONG.setRelease(buffer, CONSUMER_STATE_OFFSET, state(position, consumedCount));
+    }
+
+    /**
+     * Packs a position and a record count into one header word. Both fit in an int because a
+     * segment is smaller than 2 GiB and every record takes at least 8 bytes of it.
+     */
+    static long state(int position, int count) {
+        return ((long) count << 32) | (position & 0xFFFF_FFFFL);
+    }
+
+    static int position(long state) {
+        return (int) state;
+    }
+
+    static int count(long state) {
+        return (int) (state >>> 32);
+    }
+
+    /** Flushes this segment's pages to the storage device. */
+    void force() {
+        buffer.force();
+    }
+}
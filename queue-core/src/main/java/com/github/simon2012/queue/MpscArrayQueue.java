@@ -0,0 +1,482 @@
+package com.github.simon2012.queue;
+
+import static com.github.simon2012.queue.QueueUtil.REF_ELEMENT;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+abstract class MpscArrayQueuePad0<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscArrayQueueColdFields<E> extends MpscArrayQueuePad0<E> {
+    final int mask;
+    final Object[] buffer;
+    final WaitStrategy waitStrategy;
+    final boolean metricsEnabled;
+
+    MpscArrayQueueColdFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        int actualCapacity = QueueUtil.roundToPowerOfTwo(capacity);
+        this.mask = actualCapacity - 1;
+        this.buffer = QueueUtil.allocateRefBuffer(actualCapacity);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+        this.metricsEnabled = metricsEnabled;
+    }
+}
+
+abstract class MpscArrayQueuePad1<E> extends MpscArrayQueueColdFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscArrayQueuePad1(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class MpscArrayQueueProducerFields<E> extends MpscArrayQueuePad1<E> {
+    static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(MpscArrayQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be claimed. Producers advance it by CAS. */
+    long producerIndex;
+
+    MpscArrayQueueProducerFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvProducerIndex() {
+        return (long) PRODUCER_INDEX.getVolatile(this);
+    }
+
+    final boolean casProducerIndex(long expect, long update) {
+        return PRODUCER_INDEX.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class MpscArrayQueuePad2<E> extends MpscArrayQueueProducerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscArrayQueuePad2(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class MpscArrayQueueProducerLimitFields<E> extends MpscArrayQueuePad2<E> {
+    static final VarHandle PRODUCER_LIMIT;
+
+    static {
+        try {
+            PRODUCER_LIMIT = MethodHandles.lookup()
+                    .findVarHandle(MpscArrayQueueProducerLimitFields.class, "producerLimit", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Upper bound below which producers may claim without reading the consumer index. Kept off
+     * the producer index line so that a refresh does not invalidate the CAS target. It is only
+     * ever computed from an observed consumer index, so a stale value is conservative.
+     */
+    long producerLimit;
+
+    MpscArrayQueueProducerLimitFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvProducerLimit() {
+        return (long) PRODUCER_LIMIT.getAcquire(this);
+    }
+
+    final void soProducerLimit(long limit) {
+        PRODUCER_LIMIT.setRelease(this, limit);
+    }
+}
+
+abstract class MpscArrayQueuePad3<E> extends MpscArrayQueueProducerLimitFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscArrayQueuePad3(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class MpscArrayQueueConsumerFields<E> extends MpscArrayQueuePad3<E> {
+    static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(MpscArrayQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be read. Only the consumer writes it. */
+    long consumerIndex;
+
+    MpscArrayQueueConsumerFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvConsumerIndex() {
+        return (long) CONSUMER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class MpscArrayQueuePad4<E> extends MpscArrayQueueConsumerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscArrayQueuePad4(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class MpscArrayQueueContentionFields<E> extends MpscArrayQueuePad4<E> {
+    static final VarHandle CONTENTION_COUNT;
+
+    static {
+        try {
+            CONTENTION_COUNT = MethodHandles.lookup()
+                    .findVarHandle(MpscArrayQueueContentionFields.class, "contentionCount", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Failed producer claims, counted only with metrics enabled. Only touched after a failed
+     * CAS and padded off the hot lines, so the atomic increment stays off the fast path.
+     */
+    long contentionCount;
+
+    MpscArrayQueueContentionFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvContentionCount() {
+        return (long) CONTENTION_COUNT.getAcquire(this);
+    }
+
+    final void incrementContentionCount() {
+        CONTENTION_COUNT.getAndAdd(this, 1L);
+    }
+}
+
+abstract class MpscArrayQueuePad5<E> extends MpscArrayQueueContentionFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscArrayQueuePad5(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+/**
+ * A bounded, array-backed, lock-free multi-producer/single-consumer queue.
+ *
+ * <p>Any number of threads may call the producer methods ({@link #offer}, {@link #add}); exactly
+ * one thread may call the consumer methods ({@link #poll}, {@link #peek}, {@link #relaxedPoll},
+ * {@link #relaxedPeek}, {@link #drain}, {@link #remove}, {@link #clear}). {@link #size} and {@link #isEmpty} may be called from any
+ * thread and return a best-effort snapshot. Neither side allocates or takes a lock.
+ *
+ * <p>A producer first claims a sequence by CAS on the producer index and then publishes its
+ * element with a release store into the claimed slot. The consumer treats a non-null slot as
+ * published. Between the claim and the publish the slot is still null even though the producer
+ * index has moved past it; {@link #poll} and {@link #peek} wait out that window so that they only
+ * return null when the queue is empty. {@link #drain}, {@link #relaxedPoll} and
+ * {@link #relaxedPeek} instead stop at the first unpublished slot, and {@link #take} and
+ * {@link #awaitNotEmpty} wait for it with the queue's {@link WaitStrategy} rather than spinning.
+ *
+ * <p>The capacity is rounded up to the next power of two. Null elements are rejected.
+ * {@link #iterator} and the {@link java.util.Collection} methods built on it ({@link #contains},
+ * {@link #containsAll}, {@link #toArray()}) are consumer-side methods. {@link #remove(Object)},
+ * {@link #removeAll}, {@link #retainAll} and {@link Iterator#remove} are not supported and
+ * throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the element type
+ */
+public class MpscArrayQueue<E> extends MpscArrayQueuePad5<E> implements ConcurrentQueue<E> {
+
+    private final QueueMetrics metrics;
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements, waiting with a
+     * {@link YieldingWaitStrategy} and with metrics disabled.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public MpscArrayQueue(int capacity) {
+        this(capacity, new YieldingWaitStrategy(), false);
+    }
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements, waiting with
+     * {@code waitStrategy} and with metrics disabled.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public MpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, false);
+    }
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements.
+     *
+     * @param waitStrategy the strategy {@link #awaitNotEmpty} and {@link #take} use while the
+     *        queue is empty
+     * @param metricsEnabled whether {@link #metrics} is available
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public MpscArrayQueue(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+        this.metrics = metricsEnabled ? new Metrics() : null;
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "e");
+        long limit = lvProducerLimit();
+        while (true) {
+            final long index = lvProducerIndex();
+            if (index >= limit) {
+                limit = lvConsumerIndex() + mask + 1;
+                if (index >= limit) {
+                    return false;
+                }
+                soProducerLimit(limit);
+            }
+            if (casProducerIndex(index, index + 1)) {
+                REF_ELEMENT.setRelease(buffer, QueueUtil.slot(index, mask), e);
+                waitStrategy.signal();
+                return true;
+            }
+            if (metricsEnabled) {
+                incrementContentionCount();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.slot(index, mask);
+        Object e = REF_ELEMENT.getAcquire(buffer, slot);
+        if (e == null) {
+            if (index == lvProducerIndex()) {
+                return null;
+            }
+            e = awaitPublished(slot);
+        }
+        buffer[slot] = null;
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> consumer, int limit) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        final long index = consumerIndex;
+        for (int i = 0; i < limit; i++) {
+            final int slot = QueueUtil.slot(index + i, mask);
+            final Object e = REF_ELEMENT.getAcquire(buffer, slot);
+            if (e == null) {
+                return i;
+            }
+            buffer[slot] = null;
+            CONSUMER_INDEX.setRelease(this, index + i + 1);
+            consumer.accept((E) e);
+        }
+        return limit;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.slot(index, mask);
+        Object e = REF_ELEMENT.getAcquire(buffer, slot);
+        if (e == null && index != lvProducerIndex()) {
+            e = awaitPublished(slot);
+        }
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E relaxedPoll() {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.slot(index, mask);
+        final Object e = REF_ELEMENT.getAcquire(buffer, slot);
+        if (e == null) {
+            return null;
+        }
+        buffer[slot] = null;
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E relaxedPeek() {
+        return (E) REF_ELEMENT.getAcquire(buffer, QueueUtil.slot(consumerIndex, mask));
+    }
+
+    /** Spins until the producer that claimed {@code slot} has published its element. */
+    private Object awaitPublished(int slot) {
+        Object e;
+        while ((e = REF_ELEMENT.getAcquire(buffer, slot)) == null) {
+            Thread.onSpinWait();
+        }
+        return e;
+    }
+
+    @Override
+    public WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public QueueMetrics metrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("metrics are not enabled for this queue");
+        }
+        return metrics;
+    }
+
+    @Override
+    public int size() {
+        long after = lvConsumerIndex();
+        while (true) {
+            final long before = after;
+            final long producer = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after) {
+                return (int) (producer - after);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lvConsumerIndex() == lvProducerIndex();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements from the head of the queue, in
+     * queue order. It does not visit elements offered after it was created, nor elements the
+     * consumer removes before the iterator reaches them, and it stops early at an element that
+     * is not published yet. This is a consumer-side method; the iterator does not support
+     * {@link Iterator#remove}.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(lvProducerIndex());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity() + ", size=" + size() + "]";
+    }
+
+    private final class Itr implements Iterator<E> {
+        private final long end;
+        private long index;
+        private E next;
+
+        Itr(long end) {
+            this.end = end;
+            this.index = consumerIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final E e = next;
+            next = null;
+            return e;
+        }
+
+        /**
+         * Reads the element at the next index, or returns null at the end or at a slot that is
+         * not published yet. Only slots at or past the consumer index are read, and producers
+         * cannot reuse those while the consumer, which is this thread, is here.
+         */
+        @SuppressWarnings("unchecked")
+        private E advance() {
+            index = Math.max(index, consumerIndex);
+            if (index >= end) {
+                return null;
+            }
+            final E e = (E) REF_ELEMENT.getAcquire(buffer, QueueUtil.slot(index, mask));
+            if (e != null) {
+                index++;
+            }
+            return e;
+        }
+    }
+
+    private final class Metrics implements QueueMetrics {
+
+        @Override
+        public int depth() {
+            return size();
+        }
+
+        @Override
+        public long enqueueCount() {
+            return lvProducerIndex();
+        }
+
+        @Override
+        public long dequeueCount() {
+            return lvConsumerIndex();
+        }
+
+        @Override
+        public long producerContentionCount() {
+            return lvContentionCount();
+        }
+    }
+}
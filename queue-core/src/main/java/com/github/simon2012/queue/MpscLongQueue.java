@@ -0,0 +1,276 @@
+package com.github.simon2012.queue;
+
+import static com.github.simon2012.queue.QueueUtil.LONG_ELEMENT;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+abstract class MpscLongQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscLongQueueColdFields extends MpscLongQueuePad0 {
+    final int mask;
+    /** Each slot pair holds a value followed by the sequence that published it, plus one. */
+    final long[] buffer;
+
+    MpscLongQueueColdFields(int capacity) {
+        int actualCapacity = QueueUtil.roundToPowerOfTwo(capacity, QueueUtil.MAX_CAPACITY / 2);
+        this.mask = actualCapacity - 1;
+        this.buffer = QueueUtil.allocateLongBuffer(2 * actualCapacity);
+    }
+}
+
+abstract class MpscLongQueuePad1 extends MpscLongQueueColdFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscLongQueuePad1(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongQueueProducerFields extends MpscLongQueuePad1 {
+    static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(MpscLongQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be claimed. Producers advance it by CAS. */
+    long producerIndex;
+
+    MpscLongQueueProducerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvProducerIndex() {
+        return (long) PRODUCER_INDEX.getVolatile(this);
+    }
+
+    final boolean casProducerIndex(long expect, long update) {
+        return PRODUCER_INDEX.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class MpscLongQueuePad2 extends MpscLongQueueProducerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscLongQueuePad2(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongQueueProducerLimitFields extends MpscLongQueuePad2 {
+    static final VarHandle PRODUCER_LIMIT;
+
+    static {
+        try {
+            PRODUCER_LIMIT = MethodHandles.lookup()
+                    .findVarHandle(MpscLongQueueProducerLimitFields.class, "producerLimit", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Upper bound below which producers may claim without reading the consumer index. */
+    long producerLimit;
+
+    MpscLongQueueProducerLimitFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvProducerLimit() {
+        return (long) PRODUCER_LIMIT.getAcquire(this);
+    }
+
+    final void soProducerLimit(long limit) {
+        PRODUCER_LIMIT.setRelease(this, limit);
+    }
+}
+
+abstract class MpscLongQueuePad3 extends MpscLongQueueProducerLimitFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscLongQueuePad3(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongQueueConsumerFields extends MpscLongQueuePad3 {
+    static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(MpscLongQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be read. Only the consumer writes it. */
+    long consumerIndex;
+
+    MpscLongQueueConsumerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvConsumerIndex() {
+        return (long) CONSUMER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class MpscLongQueuePad4 extends MpscLongQueueConsumerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    MpscLongQueuePad4(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * A bounded, {@code long[]}-backed, lock-free multi-producer/single-consumer queue of primitive
+ * {@code long} values.
+ *
+ * <p>This is the primitive counterpart of {@link MpscArrayQueue} and follows the same threading
+ * contract: any number of threads may call {@link #offer} and exactly one thread may call
+ * {@link #pollOrDefault}, {@link #peekOrDefault} and {@link #drain}. Values are stored unboxed,
+ * so neither side allocates.
+ *
+ * <p>Producers claim a sequence by CAS on the producer index exactly as {@link MpscArrayQueue}
+ * does. Since a primitive slot has no null to signal publication, every value is stored next to
+ * a sequence word and a producer publishes by release-storing its claimed sequence plus one into
+ * that word after writing the value.
+ *
+ * <p>The capacity is rounded up to the next power of two.
+ */
+public class MpscLongQueue extends MpscLongQueuePad4 implements LongQueue {
+
+    /**
+     * Creates a queue holding at least {@code capacity} values.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^29}
+     */
+    public MpscLongQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(long e) {
+        long limit = lvProducerLimit();
+        long index;
+        do {
+            index = lvProducerIndex();
+            if (index >= limit) {
+                limit = lvConsumerIndex() + mask + 1;
+                if (index >= limit) {
+                    return false;
+                }
+                soProducerLimit(limit);
+            }
+        } while (!casProducerIndex(index, index + 1));
+        final int slot = QueueUtil.pairSlot(index, mask);
+        buffer[slot] = e;
+        LONG_ELEMENT.setRelease(buffer, slot + 1, index + 1);
+        return true;
+    }
+
+    @Override
+    public long pollOrDefault(long defaultValue) {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.pairSlot(index, mask);
+        if (!isPublished(slot, index)) {
+            if (index == lvProducerIndex()) {
+                return defaultValue;
+            }
+            awaitPublished(slot, index);
+        }
+        final long e = buffer[slot];
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return e;
+    }
+
+    @Override
+    public long peekOrDefault(long defaultValue) {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.pairSlot(index, mask);
+        if (!isPublished(slot, index)) {
+            if (index == lvProducerIndex()) {
+                return defaultValue;
+            }
+            awaitPublished(slot, index);
+        }
+        return buffer[slot];
+    }
+
+    @Override
+    public int drain(LongConsumer consumer, int limit) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        final long index = consumerIndex;
+        for (int i = 0; i < limit; i++) {
+            final int slot = QueueUtil.pairSlot(index + i, mask);
+            if (!isPublished(slot, index + i)) {
+                return i;
+            }
+            final long e = buffer[slot];
+            CONSUMER_INDEX.setRelease(this, index + i + 1);
+            consumer.accept(e);
+        }
+        return limit;
+    }
+
+    private boolean isPublished(int slot, long index) {
+        return (long) LONG_ELEMENT.getAcquire(buffer, slot + 1) == index + 1;
+    }
+
+    /** Spins until the producer that claimed {@code index} has published its value. */
+    private void awaitPublished(int slot, long index) {
+        while (!isPublished(slot, index)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public int size() {
+        long after = lvConsumerIndex();
+        while (true) {
+            final long before = after;
+            final long producer = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after) {
+                return (int) (producer - after);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lvConsumerIndex() == lvProducerIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity() + ", size=" + size() + "]";
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.simon2012.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins briefly, yields briefly and then parks for a fixed period on every further attempt.
+ * Producers never have to wake the consumer, at the cost of up to one park period of latency
+ * once the consumer has gone idle.
+ */
+public final class ParkingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+
+    private final long parkNanos;
+
+    /** Creates a strategy that parks for 50 microseconds at a time. */
+    public ParkingWaitStrategy() {
+        this(50, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Creates a strategy that parks for {@code parkPeriod} at a time.
+     *
+     * @throws IllegalArgumentException if {@code parkPeriod} is not positive
+     */
+    public ParkingWaitStrategy(long parkPeriod, TimeUnit unit) {
+        if (parkPeriod <= 0) {
+            throw new IllegalArgumentException("park period must be positive: " + parkPeriod);
+        }
+        this.parkNanos = unit.toNanos(parkPeriod);
+    }
+
+    @Override
+    public void idle(ConcurrentQueue<?> queue, int idleCount) {
+        if (idleCount < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(this, parkNanos);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.simon2012.queue;
+
+/**
+ * A read-only view of a queue's activity, for export to a monitoring system.
+ *
+ * <p>Enqueue and dequeue counts are read from the queue's own indices and cost nothing to
+ * maintain. Producer contention is only counted by queues created with metrics enabled. Every
+ * method may be called from any thread and returns a best-effort snapshot; use
+ * {@link QueueMetricsSampler} to turn the counts into rates.
+ */
+public interface QueueMetrics {
+
+    /** Returns the number of elements currently in the queue. */
+    int depth();
+
+    /** Returns the number of elements added since the queue was created. */
+    long enqueueCount();
+
+    /** Returns the number of elements removed since the queue was created. */
+    long dequeueCount();
+
+    /**
+     * Returns the number of times a producer lost a race for a slot to another producer and had
+     * to retry. Always zero for single-producer queues.
+     */
+    long producerContentionCount();
+}
@@ -0,0 +1,81 @@
+package com.github.simon2012.queue;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Derives per-second rates from the counts of a {@link QueueMetrics}.
+ *
+ * <p>Each call to {@link #sample} records the counts and computes the rates over the interval
+ * since the previous call, without allocating. A sampler is meant to be driven by a single
+ * reporting thread.
+ */
+public final class QueueMetricsSampler {
+
+    private final QueueMetrics metrics;
+    private final LongSupplier nanoClock;
+
+    private long lastNanos;
+    private long lastEnqueueCount;
+    private long lastDequeueCount;
+    private long lastContentionCount;
+
+    private int depth;
+    private double enqueueRate;
+    private double dequeueRate;
+    private double contentionRate;
+
+    /** Creates a sampler whose first interval starts now. */
+    public QueueMetricsSampler(QueueMetrics metrics) {
+        this(metrics, System::nanoTime);
+    }
+
+    /** Creates a sampler that reads the time from {@code nanoClock} instead of the system. */
+    QueueMetricsSampler(QueueMetrics metrics, LongSupplier nanoClock) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.nanoClock = nanoClock;
+        this.lastNanos = nanoClock.getAsLong();
+        this.lastEnqueueCount = metrics.enqueueCount();
+        this.lastDequeueCount = metrics.dequeueCount();
+        this.lastContentionCount = metrics.producerContentionCount();
+    }
+
+    /** Records the current counts and updates the rates for the interval since the last sample. */
+    public void sample() {
+        final long nanos = nanoClock.getAsLong();
+        final long enqueueCount = metrics.enqueueCount();
+        final long dequeueCount = metrics.dequeueCount();
+        final long contentionCount = metrics.producerContentionCount();
+        final double seconds = Math.max(nanos - lastNanos, 1) / 1e9;
+
+        depth = metrics.depth();
+        enqueueRate = (enqueueCount - lastEnqueueCount) / seconds;
+        dequeueRate = (dequeueCount - lastDequeueCount) / seconds;
+        contentionRate = (contentionCount - lastContentionCount) / seconds;
+
+        lastNanos = nanos;
+        lastEnqueueCount = enqueueCount;
+        lastDequeueCount = dequeueCount;
+        lastContentionCount = contentionCount;
+    }
+
+    /** Returns the queue depth at the last sample. */
+    public int depth() {
+        return depth;
+    }
+
+    /** Returns the elements added per second over the last interval. */
+    public double enqueueRate() {
+        return enqueueRate;
+    }
+
+    /** Returns the elements removed per second over the last interval. */
+    public double dequeueRate() {
+        return dequeueRate;
+    }
+
+    /** Returns the producer retries per second over the last interval. */
+    public double contentionRate() {
+        return contentionRate;
+    }
+}
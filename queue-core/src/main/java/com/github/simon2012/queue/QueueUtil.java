@@ -0,0 +1,88 @@
+package com.github.simon2012.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Sizing and slot-addressing helpers shared by the array-backed queues.
+ */
+final class QueueUtil {
+
+    /** Largest power-of-two capacity an array-backed queue can be created with. */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Number of unused slots placed before and after the live region of every ring buffer so
+     * that the first and last elements never share a cache line (or an adjacent-line prefetch
+     * pair) with the array header or a neighbouring object. Sized for 4-byte elements, so the
+     * {@code long[]} buffers are padded twice as much as strictly needed.
+     */
+    static final int BUFFER_PAD = 128 / 4;
+
+    /** Element accessor for reference ring buffers. */
+    static final VarHandle REF_ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /** Element accessor for {@code long} ring buffers. */
+    static final VarHandle LONG_ELEMENT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Element accessor for {@code int} ring buffers. */
+    static final VarHandle INT_ELEMENT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private QueueUtil() {
+    }
+
+    /**
+     * Returns {@code requested} rounded up to the next power of two.
+     *
+     * @throws IllegalArgumentException if {@code requested} is not positive or exceeds
+     *         {@link #MAX_CAPACITY}
+     */
+    static int roundToPowerOfTwo(int requested) {
+        return roundToPowerOfTwo(requested, MAX_CAPACITY);
+    }
+
+    /**
+     * Returns {@code requested} rounded up to the next power of two.
+     *
+     * @throws IllegalArgumentException if {@code requested} is not positive or exceeds
+     *         {@code max}
+     */
+    static int roundToPowerOfTwo(int requested, int max) {
+        if (requested <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + requested);
+        }
+        if (requested > max) {
+            throw new IllegalArgumentException("capacity must not exceed " + max + ": " + requested);
+        }
+        return 1 << (32 - Integer.numberOfLeadingZeros(requested - 1));
+    }
+
+    /** Allocates a padded reference ring buffer holding {@code capacity} live slots. */
+    static Object[] allocateRefBuffer(int capacity) {
+        return new Object[capacity + 2 * BUFFER_PAD];
+    }
+
+    /** Allocates a padded {@code long} ring buffer holding {@code capacity} live slots. */
+    static long[] allocateLongBuffer(int capacity) {
+        return new long[capacity + 2 * BUFFER_PAD];
+    }
+
+    /** Allocates a padded {@code int} ring buffer holding {@code capacity} live slots. */
+    static int[] allocateIntBuffer(int capacity) {
+        return new int[capacity + 2 * BUFFER_PAD];
+    }
+
+    /** Maps a sequence number onto its slot in a padded ring buffer. */
+    static int slot(long index, int mask) {
+        return BUFFER_PAD + ((int) index & mask);
+    }
+
+    /**
+     * Maps a sequence number onto the first of its two slots in a padded ring buffer that stores
+     * each element next to its publication sequence. Such a buffer has {@code 2 * capacity} live
+     * slots.
+     */
+    static int pairSlot(long index, int mask) {
+        return BUFFER_PAD + (((int) index & mask) << 1);
+    }
+}
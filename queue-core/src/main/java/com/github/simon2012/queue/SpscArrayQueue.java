@@ -0,0 +1,364 @@
+package com.github.simon2012.queue;
+
+import static com.github.simon2012.queue.QueueUtil.REF_ELEMENT;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+abstract class SpscArrayQueuePad0<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class SpscArrayQueueColdFields<E> extends SpscArrayQueuePad0<E> {
+    final int mask;
+    final Object[] buffer;
+    final WaitStrategy waitStrategy;
+    final boolean metricsEnabled;
+
+    SpscArrayQueueColdFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        int actualCapacity = QueueUtil.roundToPowerOfTwo(capacity);
+        this.mask = actualCapacity - 1;
+        this.buffer = QueueUtil.allocateRefBuffer(actualCapacity);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+        this.metricsEnabled = metricsEnabled;
+    }
+}
+
+abstract class SpscArrayQueuePad1<E> extends SpscArrayQueueColdFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscArrayQueuePad1(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class SpscArrayQueueProducerFields<E> extends SpscArrayQueuePad1<E> {
+    static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscArrayQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be written. Only the producer writes it. */
+    long producerIndex;
+    /** Producer-local upper bound below which offers need not look at the consumer index. */
+    long producerLimit;
+
+    SpscArrayQueueProducerFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvProducerIndex() {
+        return (long) PRODUCER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscArrayQueuePad2<E> extends SpscArrayQueueProducerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscArrayQueuePad2(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+abstract class SpscArrayQueueConsumerFields<E> extends SpscArrayQueuePad2<E> {
+    static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscArrayQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be read. Only the consumer writes it. */
+    long consumerIndex;
+
+    SpscArrayQueueConsumerFields(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+
+    final long lvConsumerIndex() {
+        return (long) CONSUMER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscArrayQueuePad3<E> extends SpscArrayQueueConsumerFields<E> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscArrayQueuePad3(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+    }
+}
+
+/**
+ * A bounded, array-backed, single-producer/single-consumer queue.
+ *
+ * <p>Exactly one thread may call the producer methods ({@link #offer}, {@link #add}) and exactly
+ * one thread may call the consumer methods ({@link #poll}, {@link #peek}, {@link #relaxedPoll},
+ * {@link #relaxedPeek}, {@link #drain}, {@link #remove}, {@link #clear}); {@link #size} and {@link #isEmpty} may be called from any
+ * thread and return a best-effort snapshot. Neither side allocates or takes a lock.
+ *
+ * <p>The producer index, the consumer index and the read-only configuration each sit on their
+ * own padded cache lines, and the producer keeps a private cached limit so that it only reads
+ * the consumer index once per lap of the ring instead of on every offer. The consumer detects
+ * published elements by their slot becoming non-null, so it never reads the producer index.
+ *
+ * <p>The capacity is rounded up to the next power of two. Null elements are rejected.
+ * {@link #iterator} and the {@link java.util.Collection} methods built on it ({@link #contains},
+ * {@link #containsAll}, {@link #toArray()}) are consumer-side methods. {@link #remove(Object)},
+ * {@link #removeAll}, {@link #retainAll} and {@link Iterator#remove} are not supported and
+ * throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the element type
+ */
+public class SpscArrayQueue<E> extends SpscArrayQueuePad3<E> implements ConcurrentQueue<E> {
+
+    private final QueueMetrics metrics;
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements, waiting with a
+     * {@link YieldingWaitStrategy} and with metrics disabled.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public SpscArrayQueue(int capacity) {
+        this(capacity, new YieldingWaitStrategy(), false);
+    }
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements, waiting with
+     * {@code waitStrategy} and with metrics disabled.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public SpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, false);
+    }
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements.
+     *
+     * @param waitStrategy the strategy {@link #awaitNotEmpty} and {@link #take} use while the
+     *        queue is empty
+     * @param metricsEnabled whether {@link #metrics} is available
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public SpscArrayQueue(int capacity, WaitStrategy waitStrategy, boolean metricsEnabled) {
+        super(capacity, waitStrategy, metricsEnabled);
+        this.metrics = metricsEnabled ? new Metrics() : null;
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "e");
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            final long limit = lvConsumerIndex() + mask + 1;
+            if (index >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        // Index first so that the consumer index can never overtake it in a size() snapshot.
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        REF_ELEMENT.setRelease(buffer, QueueUtil.slot(index, mask), e);
+        waitStrategy.signal();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long index = consumerIndex;
+        final int slot = QueueUtil.slot(index, mask);
+        final Object e = REF_ELEMENT.getAcquire(buffer, slot);
+        if (e == null) {
+            return null;
+        }
+        buffer[slot] = null;
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> consumer, int limit) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        final long index = consumerIndex;
+        for (int i = 0; i < limit; i++) {
+            final int slot = QueueUtil.slot(index + i, mask);
+            final Object e = REF_ELEMENT.getAcquire(buffer, slot);
+            if (e == null) {
+                return i;
+            }
+            buffer[slot] = null;
+            CONSUMER_INDEX.setRelease(this, index + i + 1);
+            consumer.accept((E) e);
+        }
+        return limit;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return (E) REF_ELEMENT.getAcquire(buffer, QueueUtil.slot(consumerIndex, mask));
+    }
+
+    /** Same as {@link #poll}: a single producer publishes each element as it claims its slot. */
+    @Override
+    public E relaxedPoll() {
+        return poll();
+    }
+
+    /** Same as {@link #peek}: a single producer publishes each element as it claims its slot. */
+    @Override
+    public E relaxedPeek() {
+        return peek();
+    }
+
+    @Override
+    public WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public QueueMetrics metrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("metrics are not enabled for this queue");
+        }
+        return metrics;
+    }
+
+    @Override
+    public int size() {
+        long after = lvConsumerIndex();
+        while (true) {
+            final long before = after;
+            final long producer = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after) {
+                return (int) (producer - after);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lvConsumerIndex() == lvProducerIndex();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements from the head of the queue, in
+     * queue order. It does not visit elements offered after it was created, nor elements the
+     * consumer removes before the iterator reaches them, and it stops early at an element that
+     * is not published yet. This is a consumer-side method; the iterator does not support
+     * {@link Iterator#remove}.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(lvProducerIndex());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity() + ", size=" + size() + "]";
+    }
+
+    private final class Itr implements Iterator<E> {
+        private final long end;
+        private long index;
+        private E next;
+
+        Itr(long end) {
+            this.end = end;
+            this.index = consumerIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final E e = next;
+            next = null;
+            return e;
+        }
+
+        /**
+         * Reads the element at the next index, or returns null at the end or at a slot that is
+         * not published yet. Only slots at or past the consumer index are read, and producers
+         * cannot reuse those while the consumer, which is this thread, is here.
+         */
+        @SuppressWarnings("unchecked")
+        private E advance() {
+            index = Math.max(index, consumerIndex);
+            if (index >= end) {
+                return null;
+            }
+            final E e = (E) REF_ELEMENT.getAcquire(buffer, QueueUtil.slot(index, mask));
+            if (e != null) {
+                index++;
+            }
+            return e;
+        }
+    }
+
+    private final class Metrics implements QueueMetrics {
+
+        @Override
+        public int depth() {
+            return size();
+        }
+
+        @Override
+        public long enqueueCount() {
+            return lvProducerIndex();
+        }
+
+        @Override
+        public long dequeueCount() {
+            return lvConsumerIndex();
+        }
+
+        @Override
+        public long producerContentionCount() {
+            return 0;
+        }
+    }
+}
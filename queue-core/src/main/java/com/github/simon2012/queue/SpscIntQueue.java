@@ -0,0 +1,211 @@
+package com.github.simon2012.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+abstract class SpscIntQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class SpscIntQueueColdFields extends SpscIntQueuePad0 {
+    final int mask;
+    final int[] buffer;
+
+    SpscIntQueueColdFields(int capacity) {
+        int actualCapacity = QueueUtil.roundToPowerOfTwo(capacity);
+        this.mask = actualCapacity - 1;
+        this.buffer = QueueUtil.allocateIntBuffer(actualCapacity);
+    }
+}
+
+abstract class SpscIntQueuePad1 extends SpscIntQueueColdFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscIntQueuePad1(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscIntQueueProducerFields extends SpscIntQueuePad1 {
+    static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscIntQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be written. Only the producer writes it. */
+    long producerIndex;
+    /** Producer-local upper bound below which offers need not look at the consumer index. */
+    long producerLimit;
+
+    SpscIntQueueProducerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvProducerIndex() {
+        return (long) PRODUCER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscIntQueuePad2 extends SpscIntQueueProducerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscIntQueuePad2(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscIntQueueConsumerFields extends SpscIntQueuePad2 {
+    static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscIntQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be read. Only the consumer writes it. */
+    long consumerIndex;
+    /** Consumer-local producer index below which polls need not look at the producer index. */
+    long consumerLimit;
+
+    SpscIntQueueConsumerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvConsumerIndex() {
+        return (long) CONSUMER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscIntQueuePad3 extends SpscIntQueueConsumerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscIntQueuePad3(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * A bounded, {@code int[]}-backed, single-producer/single-consumer queue of primitive
+ * {@code int} values.
+ *
+ * <p>This is the primitive counterpart of {@link SpscArrayQueue} and follows the same threading
+ * contract: exactly one thread may call {@link #offer} and exactly one thread may call
+ * {@link #pollOrDefault}, {@link #peekOrDefault} and {@link #drain}. Values are stored unboxed,
+ * so neither side allocates.
+ *
+ * <p>Without a null slot to signal publication, the producer publishes by advancing the
+ * producer index. Each side caches the other side's index and only re-reads it when the cached
+ * value says the ring is full or empty.
+ *
+ * <p>The capacity is rounded up to the next power of two.
+ */
+public class SpscIntQueue extends SpscIntQueuePad3 implements IntQueue {
+
+    /**
+     * Creates a queue holding at least {@code capacity} values.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public SpscIntQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(int e) {
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            final long limit = lvConsumerIndex() + mask + 1;
+            if (index >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        buffer[QueueUtil.slot(index, mask)] = e;
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    @Override
+    public int pollOrDefault(int defaultValue) {
+        final long index = consumerIndex;
+        if (index >= consumerLimit && index >= (consumerLimit = lvProducerIndex())) {
+            return defaultValue;
+        }
+        final int e = buffer[QueueUtil.slot(index, mask)];
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return e;
+    }
+
+    @Override
+    public int peekOrDefault(int defaultValue) {
+        final long index = consumerIndex;
+        if (index >= consumerLimit && index >= (consumerLimit = lvProducerIndex())) {
+            return defaultValue;
+        }
+        return buffer[QueueUtil.slot(index, mask)];
+    }
+
+    @Override
+    public int drain(IntConsumer consumer, int limit) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        final long index = consumerIndex;
+        if (consumerLimit - index < limit) {
+            consumerLimit = lvProducerIndex();
+        }
+        final int count = (int) Math.min(consumerLimit - index, limit);
+        for (int i = 0; i < count; i++) {
+            final int e = buffer[QueueUtil.slot(index + i, mask)];
+            CONSUMER_INDEX.setRelease(this, index + i + 1);
+            consumer.accept(e);
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        long after = lvConsumerIndex();
+        while (true) {
+            final long before = after;
+            final long producer = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after) {
+                return (int) (producer - after);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lvConsumerIndex() == lvProducerIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity() + ", size=" + size() + "]";
+    }
+}
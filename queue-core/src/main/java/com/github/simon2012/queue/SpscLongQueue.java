@@ -0,0 +1,211 @@
+package com.github.simon2012.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+abstract class SpscLongQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class SpscLongQueueColdFields extends SpscLongQueuePad0 {
+    final int mask;
+    final long[] buffer;
+
+    SpscLongQueueColdFields(int capacity) {
+        int actualCapacity = QueueUtil.roundToPowerOfTwo(capacity);
+        this.mask = actualCapacity - 1;
+        this.buffer = QueueUtil.allocateLongBuffer(actualCapacity);
+    }
+}
+
+abstract class SpscLongQueuePad1 extends SpscLongQueueColdFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscLongQueuePad1(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscLongQueueProducerFields extends SpscLongQueuePad1 {
+    static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscLongQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be written. Only the producer writes it. */
+    long producerIndex;
+    /** Producer-local upper bound below which offers need not look at the consumer index. */
+    long producerLimit;
+
+    SpscLongQueueProducerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvProducerIndex() {
+        return (long) PRODUCER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscLongQueuePad2 extends SpscLongQueueProducerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscLongQueuePad2(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscLongQueueConsumerFields extends SpscLongQueuePad2 {
+    static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscLongQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Next sequence to be read. Only the consumer writes it. */
+    long consumerIndex;
+    /** Consumer-local producer index below which polls need not look at the producer index. */
+    long consumerLimit;
+
+    SpscLongQueueConsumerFields(int capacity) {
+        super(capacity);
+    }
+
+    final long lvConsumerIndex() {
+        return (long) CONSUMER_INDEX.getAcquire(this);
+    }
+}
+
+abstract class SpscLongQueuePad3 extends SpscLongQueueConsumerFields {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscLongQueuePad3(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * A bounded, {@code long[]}-backed, single-producer/single-consumer queue of primitive
+ * {@code long} values.
+ *
+ * <p>This is the primitive counterpart of {@link SpscArrayQueue} and follows the same threading
+ * contract: exactly one thread may call {@link #offer} and exactly one thread may call
+ * {@link #pollOrDefault}, {@link #peekOrDefault} and {@link #drain}. Values are stored unboxed,
+ * so neither side allocates.
+ *
+ * <p>Without a null slot to signal publication, the producer publishes by advancing the
+ * producer index. Each side caches the other side's index and only re-reads it when the cached
+ * value says the ring is full or empty.
+ *
+ * <p>The capacity is rounded up to the next power of two.
+ */
+public class SpscLongQueue extends SpscLongQueuePad3 implements LongQueue {
+
+    /**
+     * Creates a queue holding at least {@code capacity} values.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive or exceeds
+     *         {@code 2^30}
+     */
+    public SpscLongQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(long e) {
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            final long limit = lvConsumerIndex() + mask + 1;
+            if (index >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        buffer[QueueUtil.slot(index, mask)] = e;
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    @Override
+    public long pollOrDefault(long defaultValue) {
+        final long index = consumerIndex;
+        if (index >= consumerLimit && index >= (consumerLimit = lvProducerIndex())) {
+            return defaultValue;
+        }
+        final long e = buffer[QueueUtil.slot(index, mask)];
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return e;
+    }
+
+    @Override
+    public long peekOrDefault(long defaultValue) {
+        final long index = consumerIndex;
+        if (index >= consumerLimit && index >= (consumerLimit = lvProducerIndex())) {
+            return defaultValue;
+        }
+        return buffer[QueueUtil.slot(index, mask)];
+    }
+
+    @Override
+    public int drain(LongConsumer consumer, int limit) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        final long index = consumerIndex;
+        if (consumerLimit - index < limit) {
+            consumerLimit = lvProducerIndex();
+        }
+        final int count = (int) Math.min(consumerLimit - index, limit);
+        for (int i = 0; i < count; i++) {
+            final long e = buffer[QueueUtil.slot(index + i, mask)];
+            CONSUMER_INDEX.setRelease(this, index + i + 1);
+            consumer.accept(e);
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        long after = lvConsumerIndex();
+        while (true) {
+            final long before = after;
+            final long producer = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after) {
+                return (int) (producer - after);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lvConsumerIndex() == lvProducerIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[capacity=" + capacity() + ", size=" + size() + "]";
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.simon2012.queue;
+
+/**
+ * Decides what the consumer of a {@link ConcurrentQueue} does while the queue is empty, trading
+ * CPU time for wake-up latency.
+ *
+ * <p>The queue calls {@link #signal} on the producer side after every successful offer, and
+ * {@link ConcurrentQueue#awaitNotEmpty} calls {@link #idle} on the consumer side each time it
+ * finds the queue empty. Stateless strategies may be shared between any number of queues; a
+ * strategy that keeps per-queue state, such as {@link BlockingWaitStrategy}, binds to the first
+ * queue that idles on it and rejects any other.
+ *
+ * @see BusySpinWaitStrategy
+ * @see YieldingWaitStrategy
+ * @see ParkingWaitStrategy
+ * @see BlockingWaitStrategy
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits a little for the next element of {@code queue} to become available, that is for
+     * {@link ConcurrentQueue#relaxedPeek} to return non-null. Implementations may return early
+     * or spuriously; the caller re-checks the queue after every call.
+     *
+     * @param idleCount the number of consecutive calls that found the queue still empty,
+     *        starting at zero
+     */
+    void idle(ConcurrentQueue<?> queue, int idleCount);
+
+    /**
+     * Wakes a consumer blocked in {@link #idle}, if the strategy blocks. Does nothing by
+     * default.
+     */
+    default void signal() {
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.simon2012.queue;
+
+/**
+ * Spins for a bounded number of attempts and then yields the CPU on every further attempt.
+ * Low latency while leaving room for other runnable threads.
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public void idle(ConcurrentQueue<?> queue, int idleCount) {
+        if (idleCount < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
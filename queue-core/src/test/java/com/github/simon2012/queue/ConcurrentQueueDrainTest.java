@@ -0,0 +1,99 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ConcurrentQueueDrainTest {
+
+    static Stream<IntFunction<ConcurrentQueue<Integer>>> queues() {
+        return Stream.of(SpscArrayQueue::new, MpscArrayQueue::new);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void zeroLimitRemovesNothing(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = filled(factory.apply(8), 3);
+        assertEquals(0, queue.drain(e -> { }, 0));
+        assertEquals(3, queue.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void rejectsInvalidArguments(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = filled(factory.apply(8), 3);
+        assertThrows(IllegalArgumentException.class, () -> queue.drain(e -> { }, -1));
+        assertThrows(NullPointerException.class, () -> queue.drain(null, 1));
+        assertEquals(3, queue.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void emptyQueueDrainsNothing(IntFunction<ConcurrentQueue<Integer>> factory) {
+        assertEquals(0, factory.apply(8).drain(e -> { }, 10));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void partialBatchReturnsWhatIsAvailable(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = filled(factory.apply(8), 3);
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void limitCapsTheBatch(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = filled(factory.apply(8), 5);
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.poll());
+        assertEquals(2, queue.drain(drained::add, 2));
+        assertEquals(List.of(0, 1, 3, 4), drained);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void drainsAcrossTheWrap(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = factory.apply(4);
+        int next = 0;
+        int expected = 0;
+        for (int lap = 0; lap < 10; lap++) {
+            while (queue.offer(next)) {
+                next++;
+            }
+            final int[] seen = {expected};
+            assertEquals(4, queue.drain(e -> assertEquals(seen[0]++, e), 10));
+            expected = seen[0];
+        }
+        assertEquals(next, expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void freesSlotsBeforeHandingOutElements(IntFunction<ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = filled(factory.apply(2), 2);
+        // The consumer may offer back into the queue from inside the callback.
+        assertEquals(2, queue.drain(e -> assertTrue(queue.offer(e + 10)), 2));
+        assertEquals(10, queue.poll());
+        assertEquals(11, queue.poll());
+    }
+
+    private static ConcurrentQueue<Integer> filled(ConcurrentQueue<Integer> queue, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer(i));
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class IntQueueTest {
+
+    static Stream<IntFunction<IntQueue>> queues() {
+        return Stream.of(SpscIntQueue::new, MpscIntQueue::new);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void roundsCapacityUpToPowerOfTwo(IntFunction<IntQueue> factory) {
+        assertEquals(1, factory.apply(1).capacity());
+        assertEquals(4, factory.apply(3).capacity());
+        assertEquals(128, factory.apply(100).capacity());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void rejectsNonPositiveCapacity(IntFunction<IntQueue> factory) {
+        assertThrows(IllegalArgumentException.class, () -> factory.apply(0));
+        assertThrows(IllegalArgumentException.class, () -> factory.apply(-1));
+    }
+
+    @Test
+    void boundsCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscIntQueue((1 << 30) + 1));
+        // Each value takes a pair of slots, so the multi-producer queue holds half as many.
+        assertThrows(IllegalArgumentException.class, () -> new MpscIntQueue((1 << 29) + 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void emptyQueueReturnsDefault(IntFunction<IntQueue> factory) {
+        final IntQueue queue = factory.apply(4);
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+        assertEquals(-1, queue.pollOrDefault(-1));
+        assertEquals(-2, queue.peekOrDefault(-2));
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(0, queue.drain(drained::add, 10));
+        assertTrue(drained.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void offerFailsWhenFull(IntFunction<IntQueue> factory) {
+        final IntQueue queue = factory.apply(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.peekOrDefault(-1));
+        assertEquals(0, queue.pollOrDefault(-1));
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(5));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void drainsInOrder(IntFunction<IntQueue> factory) {
+        final IntQueue queue = factory.apply(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drain(drained::add, 2));
+        assertEquals(3, queue.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertThrows(IllegalArgumentException.class, () -> queue.drain(drained::add, -1));
+        assertThrows(NullPointerException.class, () -> queue.drain(null, 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void wrapsAroundOverManyLaps(IntFunction<IntQueue> factory) {
+        final IntQueue queue = factory.apply(4);
+        int next = Integer.MAX_VALUE - 20;
+        int expected = next;
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            assertEquals(3, queue.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, queue.pollOrDefault(-1));
+            }
+            assertEquals(-1, queue.pollOrDefault(-1));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void preservesPerProducerOrder() throws InterruptedException {
+        final int producers = 3;
+        final int count = 100_000;
+        final MpscIntQueue queue = new MpscIntQueue(64);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    while (!queue.offer(id << 24 | i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+            threads.add(thread);
+            thread.start();
+        }
+
+        final int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * count) {
+            final int e = queue.pollOrDefault(-1);
+            if (e == -1) {
+                Thread.yield();
+                continue;
+            }
+            final int id = e >>> 24;
+            assertEquals(next[id]++, e & 0xFF_FFFF);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class LongQueueTest {
+
+    static Stream<IntFunction<LongQueue>> queues() {
+        return Stream.of(SpscLongQueue::new, MpscLongQueue::new);
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void roundsCapacityUpToPowerOfTwo(IntFunction<LongQueue> factory) {
+        assertEquals(1, factory.apply(1).capacity());
+        assertEquals(4, factory.apply(3).capacity());
+        assertEquals(128, factory.apply(100).capacity());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void rejectsNonPositiveCapacity(IntFunction<LongQueue> factory) {
+        assertThrows(IllegalArgumentException.class, () -> factory.apply(0));
+        assertThrows(IllegalArgumentException.class, () -> factory.apply(-1));
+    }
+
+    @Test
+    void boundsCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscLongQueue((1 << 30) + 1));
+        // Each value takes a pair of slots, so the multi-producer queue holds half as many.
+        assertThrows(IllegalArgumentException.class, () -> new MpscLongQueue((1 << 29) + 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void emptyQueueReturnsDefault(IntFunction<LongQueue> factory) {
+        final LongQueue queue = factory.apply(4);
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+        assertEquals(-1L, queue.pollOrDefault(-1L));
+        assertEquals(-2L, queue.peekOrDefault(-2L));
+        final List<Long> drained = new ArrayList<>();
+        assertEquals(0, queue.drain(drained::add, 10));
+        assertTrue(drained.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void offerFailsWhenFull(IntFunction<LongQueue> factory) {
+        final LongQueue queue = factory.apply(4);
+        for (long i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4L));
+        assertEquals(4, queue.size());
+        assertEquals(0L, queue.peekOrDefault(-1L));
+        assertEquals(0L, queue.pollOrDefault(-1L));
+        assertTrue(queue.offer(4L));
+        assertFalse(queue.offer(5L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void drainsInOrder(IntFunction<LongQueue> factory) {
+        final LongQueue queue = factory.apply(8);
+        for (long i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        final List<Long> drained = new ArrayList<>();
+        assertEquals(2, queue.drain(drained::add, 2));
+        assertEquals(3, queue.drain(drained::add, 10));
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), drained);
+        assertThrows(IllegalArgumentException.class, () -> queue.drain(drained::add, -1));
+        assertThrows(NullPointerException.class, () -> queue.drain(null, 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void wrapsAroundOverManyLaps(IntFunction<LongQueue> factory) {
+        final LongQueue queue = factory.apply(4);
+        long next = Long.MAX_VALUE - 20;
+        long expected = next;
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            assertEquals(3, queue.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, queue.pollOrDefault(-1L));
+            }
+            assertEquals(-1L, queue.pollOrDefault(-1L));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void preservesPerProducerOrder() throws InterruptedException {
+        final int producers = 3;
+        final int count = 100_000;
+        final MpscLongQueue queue = new MpscLongQueue(64);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final long id = p;
+            final Thread thread = new Thread(() -> {
+                for (long i = 0; i < count; i++) {
+                    while (!queue.offer(id << 32 | i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+            threads.add(thread);
+            thread.start();
+        }
+
+        final long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * count) {
+            final long e = queue.pollOrDefault(-1L);
+            if (e == -1L) {
+                Thread.yield();
+                continue;
+            }
+            final int id = (int) (e >>> 32);
+            assertEquals(next[id]++, e & 0xFFFF_FFFFL);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,412 @@
+package com.github.simon2012.queue;
+
+import static com.github.simon2012.queue.MappedSegment.DATA_OFFSET;
+import static com.github.simon2012.queue.MappedSegment.END_OF_SEGMENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedQueueTest {
+
+    /** Four-byte payloads make eight-byte records, which fill {@link #EXACT_SEGMENT} exactly. */
+    private static final Codec<Integer> INT_CODEC = new Codec<Integer>() {
+        @Override
+        public int encodedLength(Integer e) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer e, ByteBuffer dst) {
+            dst.putInt(e);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer src) {
+            return src.getInt();
+        }
+    };
+
+    /** Eight-byte payloads make twelve-byte records padded to sixteen. */
+    private static final Codec<Long> LONG_CODEC = new Codec<Long>() {
+        @Override
+        public int encodedLength(Long e) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long e, ByteBuffer dst) {
+            dst.putLong(e);
+        }
+
+        @Override
+        public Long decode(ByteBuffer src) {
+            return src.getLong();
+        }
+    };
+
+    /** Holds exactly four {@link #INT_CODEC} records with no room left for an end marker. */
+    private static final int EXACT_SEGMENT = DATA_OFFSET + 4 * 8;
+    /** Holds four {@link #LONG_CODEC} records followed by an end marker. */
+    private static final int LOOSE_SEGMENT = DATA_OFFSET + 4 * 16 + 8;
+    /** Where the end marker of a full {@link #LOOSE_SEGMENT} goes. */
+    private static final int LOOSE_END = DATA_OFFSET + 4 * 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> MappedQueue.open(dir, DATA_OFFSET, INT_CODEC));
+        assertThrows(NullPointerException.class, () -> MappedQueue.open(dir, EXACT_SEGMENT, null));
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (MappedQueue<Long> queue = MappedQueue.open(dir, DATA_OFFSET + 8, LONG_CODEC)) {
+                queue.offer(1L);
+            }
+        });
+    }
+
+    @Test
+    void emptyQueueReturnsNull() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+            assertNull(queue.peek());
+            assertThrows(NullPointerException.class, () -> queue.offer(null));
+        }
+    }
+
+    @Test
+    void locksDirectoryUntilClosed() throws IOException {
+        final MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC);
+        assertThrows(IOException.class, () -> MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC));
+        queue.offer(1);
+        queue.close();
+        try (MappedQueue<Integer> reopened = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            assertEquals(1, reopened.poll());
+        }
+    }
+
+    @Test
+    void rejectsOperationsAfterClose() throws IOException {
+        final MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC);
+        queue.offer(1);
+        queue.close();
+        queue.close();
+        assertThrows(IllegalStateException.class, () -> queue.offer(2));
+        assertThrows(IllegalStateException.class, queue::poll);
+        assertThrows(IllegalStateException.class, queue::peek);
+        assertThrows(IllegalStateException.class, queue::force);
+    }
+
+    @Test
+    void survivesCloseAndOpen() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            for (long i = 0; i < 10; i++) {
+                queue.offer(i);
+            }
+            assertEquals(0L, queue.poll());
+            assertEquals(1L, queue.poll());
+        }
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertEquals(8, queue.size());
+            queue.offer(10L);
+            assertEquals(2L, queue.peek());
+            assertPolls(queue, 2, 11);
+        }
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void rollsOverAtExactFit() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 4; i++) {
+                queue.offer(i);
+            }
+            assertEquals(1, segmentCount());
+            queue.offer(4);
+            assertEquals(2, segmentCount());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void rollsOverAtNonExactFit() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            for (long i = 0; i < 4; i++) {
+                queue.offer(i);
+            }
+            assertEquals(1, segmentCount());
+            queue.offer(4L);
+            assertEquals(2, segmentCount());
+            assertEquals(END_OF_SEGMENT, readInt(segment(0), LOOSE_END));
+            assertPolls(queue, 0, 5);
+        }
+    }
+
+    @Test
+    void iteratesAcrossSegments() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 10; i++) {
+                queue.offer(i);
+            }
+            assertEquals(0, queue.poll());
+            final Iterator<Integer> it = queue.iterator();
+            assertEquals(1, it.next());
+            // Removed elements are skipped, including a whole segment the consumer left behind.
+            for (int i = 1; i < 6; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertEquals(6, it.next());
+            queue.offer(10);
+            final List<Integer> rest = new ArrayList<>();
+            it.forEachRemaining(rest::add);
+            assertEquals(List.of(7, 8, 9, 10), rest);
+            assertTrue(queue.contains(10));
+            assertThrows(UnsupportedOperationException.class, () -> queue.remove((Object) 8));
+            assertEquals(5, queue.size());
+        }
+    }
+
+    @Test
+    void deletesConsumedSegments() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 10; i++) {
+                queue.offer(i);
+            }
+            assertEquals(3, segmentCount());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, queue.poll());
+            }
+            // The consumer leaves a segment once it reads past its end.
+            assertFalse(Files.exists(segment(0)));
+            assertEquals(2, segmentCount());
+            for (int i = 5; i < 10; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    void skipsConsumedSegmentThatWasNotDeleted() throws IOException {
+        final Path copy = dir.resolve("copy");
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 10; i++) {
+                queue.offer(i);
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, queue.poll());
+            }
+            Files.copy(segment(0), copy);
+            assertEquals(4, queue.poll());
+            assertEquals(5, queue.poll());
+        }
+        // As if the platform had refused to delete the mapped file.
+        Files.move(copy, segment(0));
+
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            assertFalse(Files.exists(segment(0)));
+            assertEquals(4, queue.size());
+            for (int i = 6; i < 10; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void recoversRecordPublishedBeforeProducerCommit() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            queue.offer(0L);
+            queue.offer(1L);
+        }
+        // The record length and payload reached the file but the header still covers two.
+        writeLong(segment(0), DATA_OFFSET + 2 * 16 + 4, 2L);
+        writeInt(segment(0), DATA_OFFSET + 2 * 16, 12);
+
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertEquals(3, queue.size());
+            queue.offer(3L);
+            assertPolls(queue, 0, 4);
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void repairsSegmentWithoutEndMarker() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            for (long i = 0; i < 6; i++) {
+                queue.offer(i);
+            }
+        }
+        // The successor exists but the marker that leads the consumer to it never reached the file.
+        writeInt(segment(0), LOOSE_END, 0);
+
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertEquals(6, queue.size());
+            assertPolls(queue, 0, 6);
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void createsSuccessorOfEndedTail() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            for (long i = 0; i < 4; i++) {
+                queue.offer(i);
+            }
+        }
+        // The producer sealed the segment and then crashed before creating the next one.
+        writeInt(segment(0), LOOSE_END, END_OF_SEGMENT);
+
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertEquals(2, segmentCount());
+            assertEquals(4, queue.size());
+            queue.offer(4L);
+            assertPolls(queue, 0, 5);
+        }
+    }
+
+    @Test
+    void keepsCountsConsistentAcrossConsumerCommits() throws IOException {
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            for (long i = 0; i < 3; i++) {
+                queue.offer(i);
+            }
+            assertEquals(0L, queue.poll());
+        }
+        // Position and count are committed as one word, so the header can only ever hold one
+        // of the two consistent states around a poll.
+        final long state = readLong(segment(0), MappedSegment.CONSUMER_STATE_OFFSET);
+        assertEquals(DATA_OFFSET + 16, MappedSegment.position(state));
+        assertEquals(1, MappedSegment.count(state));
+
+        // Roll the consumer back as a crash of the machine before its header was written out would.
+        writeLong(segment(0), MappedSegment.CONSUMER_STATE_OFFSET, MappedSegment.state(DATA_OFFSET, 0));
+        try (MappedQueue<Long> queue = MappedQueue.open(dir, LOOSE_SEGMENT, LONG_CODEC)) {
+            assertEquals(3, queue.size());
+            assertPolls(queue, 0, 3);
+            assertEquals(0, queue.size());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void recreatesTailLeftUninitializedByCrash() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 4; i++) {
+                queue.offer(i);
+            }
+        }
+        // The successor was created and sized but nothing was written to it.
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(EXACT_SEGMENT));
+        }
+
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            assertEquals(4, queue.size());
+            queue.offer(4);
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void recreatesEmptyTailFile() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            queue.offer(0);
+        }
+        Files.createFile(segment(1));
+
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            assertEquals(1, queue.size());
+            assertEquals(0, queue.poll());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void rejectsUninitializedSegmentBeforeTail() throws IOException {
+        try (MappedQueue<Integer> queue = MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC)) {
+            for (int i = 0; i < 5; i++) {
+                queue.offer(i);
+            }
+        }
+        writeLong(segment(0), 0, 0L);
+
+        assertThrows(IOException.class, () -> MappedQueue.open(dir, EXACT_SEGMENT, INT_CODEC));
+    }
+
+    private static void assertPolls(MappedQueue<Long> queue, long from, long to) {
+        for (long i = from; i < to; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    private Path segment(long sequence) {
+        return dir.resolve(MappedSegment.fileName(sequence));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static int readInt(Path file, int position) throws IOException {
+        return read(file, position, Integer.BYTES).getInt(0);
+    }
+
+    private static long readLong(Path file, int position) throws IOException {
+        return read(file, position, Long.BYTES).getLong(0);
+    }
+
+    private static ByteBuffer read(Path file, int position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(buffer, position);
+        }
+        return buffer;
+    }
+
+    private static void writeInt(Path file, int position, int value) throws IOException {
+        write(file, position, ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value));
+    }
+
+    private static void writeLong(Path file, int position, long value) throws IOException {
+        write(file, position, ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, value));
+    }
+
+    private static void write(Path file, int position, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(buffer, position);
+        }
+    }
+}
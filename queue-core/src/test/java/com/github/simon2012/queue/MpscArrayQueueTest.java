@@ -0,0 +1,206 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class MpscArrayQueueTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(4, new MpscArrayQueue<Integer>(3).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscArrayQueue<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new MpscArrayQueue<Integer>((1 << 30) + 1));
+    }
+
+    @Test
+    void offerFailsWhenFullAndPollReturnsNullWhenEmpty() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(2);
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(1, queue.poll());
+        assertTrue(queue.offer(3));
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThrows(NullPointerException.class, () -> new MpscArrayQueue<Integer>(4).offer(null));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void pollWaitsForClaimedButUnpublishedSlot() throws InterruptedException {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertTrue(queue.casProducerIndex(0, 1));
+        assertEquals(1, queue.size());
+        final Thread publisher = publishLater(queue, 0, 42);
+        assertEquals(42, queue.poll());
+        publisher.join();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void peekWaitsForClaimedButUnpublishedSlot() throws InterruptedException {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertTrue(queue.casProducerIndex(0, 1));
+        final Thread publisher = publishLater(queue, 0, 42);
+        assertEquals(42, queue.peek());
+        publisher.join();
+        assertEquals(42, queue.poll());
+    }
+
+    @Test
+    void relaxedPollAndPeekDoNotWaitForClaimedSlot() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertTrue(queue.casProducerIndex(0, 1));
+        assertFalse(queue.isEmpty());
+        assertNull(queue.relaxedPeek());
+        assertNull(queue.relaxedPoll());
+
+        QueueUtil.REF_ELEMENT.setRelease(queue.buffer, QueueUtil.slot(0, queue.mask), 42);
+        assertEquals(42, queue.relaxedPeek());
+        assertEquals(42, queue.relaxedPoll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void takeParksOnClaimedButUnpublishedSlot() throws Exception {
+        final BlockingWaitStrategy strategy = new BlockingWaitStrategy();
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4, strategy);
+        assertTrue(queue.casProducerIndex(0, 1));
+        final CompletableFuture<Integer> taken = new CompletableFuture<>();
+        final Thread consumer = new Thread(() -> {
+            try {
+                taken.complete(queue.take());
+            } catch (Throwable t) {
+                taken.completeExceptionally(t);
+            }
+        });
+        consumer.start();
+        // The consumer must wait with the strategy, which parks it, rather than spin.
+        while (consumer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        QueueUtil.REF_ELEMENT.setRelease(queue.buffer, QueueUtil.slot(0, queue.mask), 42);
+        strategy.signal();
+        assertEquals(42, taken.get());
+        consumer.join();
+    }
+
+    @Test
+    void iteratorStopsAtUnpublishedSlot() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.casProducerIndex(1, 2));
+        assertTrue(queue.offer(3));
+        assertEquals(List.of(1), new ArrayList<>(queue));
+        assertFalse(queue.contains(3));
+
+        QueueUtil.REF_ELEMENT.setRelease(queue.buffer, QueueUtil.slot(1, queue.mask), 2);
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(queue));
+        assertTrue(queue.contains(3));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    void drainStopsAtUnpublishedSlot() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.casProducerIndex(1, 2));
+        assertTrue(queue.offer(3));
+
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(1, queue.drain(drained::add, 10));
+        assertEquals(List.of(1), drained);
+        assertEquals(0, queue.drain(drained::add, 10));
+
+        QueueUtil.REF_ELEMENT.setRelease(queue.buffer, QueueUtil.slot(1, queue.mask), 2);
+        assertEquals(2, queue.drain(drained::add, 10));
+        assertEquals(List.of(1, 2, 3), drained);
+    }
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void preservesOrderPerProducer() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 200_000;
+        final MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(64);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    final long[] e = {id, i};
+                    while (!queue.offer(e)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].setUncaughtExceptionHandler((t, e) -> failure.set(e));
+            threads[p].start();
+        }
+
+        final long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            // Alternate between single polls and batches so both consumer paths see contention.
+            if ((received & 1) == 0) {
+                final long[] e = queue.poll();
+                if (e == null) {
+                    Thread.yield();
+                    continue;
+                }
+                assertEquals(next[(int) e[0]]++, e[1]);
+                received++;
+            } else {
+                final int drained = queue.drain(e -> assertEquals(next[(int) e[0]]++, e[1]), 32);
+                if (drained == 0) {
+                    Thread.yield();
+                }
+                received += drained;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, next[p]);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    private static Thread publishLater(MpscArrayQueue<Integer> queue, long index, Integer e) {
+        final Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            QueueUtil.REF_ELEMENT.setRelease(queue.buffer, QueueUtil.slot(index, queue.mask), e);
+        });
+        publisher.start();
+        return publisher;
+    }
+}
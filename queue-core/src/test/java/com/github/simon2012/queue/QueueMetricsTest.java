@@ -0,0 +1,157 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class QueueMetricsTest {
+
+    static Stream<Function<Boolean, ConcurrentQueue<Integer>>> queues() {
+        return Stream.of(
+                metricsEnabled -> new SpscArrayQueue<>(8, new YieldingWaitStrategy(), metricsEnabled),
+                metricsEnabled -> new MpscArrayQueue<>(8, new YieldingWaitStrategy(), metricsEnabled));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void metricsAreUnavailableUnlessEnabled(Function<Boolean, ConcurrentQueue<Integer>> factory) {
+        assertThrows(IllegalStateException.class, () -> factory.apply(false).metrics());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queues")
+    void countsOffersAndPolls(Function<Boolean, ConcurrentQueue<Integer>> factory) {
+        final ConcurrentQueue<Integer> queue = factory.apply(true);
+        final QueueMetrics metrics = queue.metrics();
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 5; i++) {
+                queue.offer(i);
+            }
+            queue.poll();
+            queue.poll();
+        }
+        queue.drain(e -> { }, 4);
+        // A failed offer is not an enqueue.
+        for (int i = 0; i < 8; i++) {
+            queue.offer(i);
+        }
+
+        assertEquals(15 + 3, metrics.enqueueCount());
+        assertEquals(6 + 4, metrics.dequeueCount());
+        assertEquals(8, metrics.depth());
+        assertEquals(0, metrics.producerContentionCount());
+    }
+
+    @Test
+    void countsContendedProducerClaims() throws InterruptedException {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(1024, new YieldingWaitStrategy(), true);
+        final QueueMetrics metrics = queue.metrics();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            // No yielding anywhere, so that threads are preempted at arbitrary points, including
+            // between reading the producer index and claiming it.
+            final Thread producer = new Thread(() -> {
+                while (!stop.get()) {
+                    queue.offer(1);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try {
+            while (metrics.producerContentionCount() == 0 && System.nanoTime() < deadline) {
+                queue.drain(e -> { }, Integer.MAX_VALUE);
+            }
+        } finally {
+            stop.set(true);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        }
+        queue.drain(e -> { }, Integer.MAX_VALUE);
+
+        assertTrue(metrics.producerContentionCount() > 0);
+        assertEquals(metrics.enqueueCount(), metrics.dequeueCount());
+    }
+
+    @Test
+    void samplerComputesRatesOverEachInterval() {
+        final StubMetrics metrics = new StubMetrics();
+        metrics.enqueueCount = 100;
+        metrics.dequeueCount = 40;
+        metrics.contentionCount = 7;
+        final AtomicLong nanos = new AtomicLong(5_000_000_000L);
+        final QueueMetricsSampler sampler = new QueueMetricsSampler(metrics, nanos::get);
+
+        metrics.depth = 12;
+        metrics.enqueueCount = 300;
+        metrics.dequeueCount = 140;
+        metrics.contentionCount = 8;
+        nanos.addAndGet(500_000_000L);
+        sampler.sample();
+        assertEquals(12, sampler.depth());
+        assertEquals(400.0, sampler.enqueueRate(), 1e-9);
+        assertEquals(200.0, sampler.dequeueRate(), 1e-9);
+        assertEquals(2.0, sampler.contentionRate(), 1e-9);
+
+        // Rates cover only the interval since the previous sample.
+        metrics.depth = 0;
+        metrics.dequeueCount = 440;
+        nanos.addAndGet(2_000_000_000L);
+        sampler.sample();
+        assertEquals(0, sampler.depth());
+        assertEquals(0.0, sampler.enqueueRate(), 1e-9);
+        assertEquals(150.0, sampler.dequeueRate(), 1e-9);
+        assertEquals(0.0, sampler.contentionRate(), 1e-9);
+    }
+
+    @Test
+    void samplerSurvivesZeroLengthInterval() {
+        final StubMetrics metrics = new StubMetrics();
+        final QueueMetricsSampler sampler = new QueueMetricsSampler(metrics, () -> 0L);
+        metrics.enqueueCount = 1;
+        sampler.sample();
+        assertTrue(Double.isFinite(sampler.enqueueRate()));
+        assertEquals(1e9, sampler.enqueueRate(), 1e-3);
+    }
+
+    private static final class StubMetrics implements QueueMetrics {
+        int depth;
+        long enqueueCount;
+        long dequeueCount;
+        long contentionCount;
+
+        @Override
+        public int depth() {
+            return depth;
+        }
+
+        @Override
+        public long enqueueCount() {
+            return enqueueCount;
+        }
+
+        @Override
+        public long dequeueCount() {
+            return dequeueCount;
+        }
+
+        @Override
+        public long producerContentionCount() {
+            return contentionCount;
+        }
+    }
+}
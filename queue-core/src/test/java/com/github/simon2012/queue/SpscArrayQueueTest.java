@@ -0,0 +1,192 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class SpscArrayQueueTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(1, new SpscArrayQueue<Integer>(1).capacity());
+        assertEquals(4, new SpscArrayQueue<Integer>(3).capacity());
+        assertEquals(128, new SpscArrayQueue<Integer>(100).capacity());
+        assertEquals(128, new SpscArrayQueue<Integer>(128).capacity());
+        assertEquals(1 << 30, QueueUtil.roundToPowerOfTwo((1 << 29) + 1));
+    }
+
+    @Test
+    void rejectsCapacityOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscArrayQueue<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpscArrayQueue<Integer>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SpscArrayQueue<Integer>((1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SpscArrayQueue<Integer>(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThrows(NullPointerException.class, () -> new SpscArrayQueue<Integer>(4).offer(null));
+    }
+
+    @Test
+    void emptyQueueReturnsNull() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    void offerFailsWhenFull() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(5));
+    }
+
+    @Test
+    void peekDoesNotRemove() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        queue.offer(7);
+        assertEquals(7, queue.peek());
+        assertEquals(1, queue.size());
+        assertEquals(7, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void wrapsAroundOverManyLaps() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int lap = 0; lap < 10; lap++) {
+            // Offer three and poll three so that the indices drift across slot boundaries.
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            assertEquals(3, queue.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void iteratesFromHeadInOrder() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        assertFalse(queue.iterator().hasNext());
+        // Start mid-ring so that the iteration wraps.
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+            queue.poll();
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        final Iterator<Integer> it = queue.iterator();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.next());
+        }
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    void iteratorIsWeaklyConsistent() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+        queue.offer(0);
+        queue.offer(1);
+        queue.offer(2);
+        final Iterator<Integer> it = queue.iterator();
+        assertEquals(0, it.next());
+        // Removed elements are skipped; elements offered after creation are not visited.
+        assertEquals(0, queue.poll());
+        assertEquals(1, queue.poll());
+        queue.offer(3);
+        queue.offer(4);
+        assertEquals(2, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void supportsReadOnlyCollectionMethods() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        assertTrue(queue.contains(3));
+        assertFalse(queue.contains(5));
+        assertTrue(queue.containsAll(List.of(0, 4)));
+        assertArrayEquals(new Object[] {0, 1, 2, 3, 4}, queue.toArray());
+        assertArrayEquals(new Integer[] {0, 1, 2, 3, 4}, queue.toArray(new Integer[0]));
+        assertEquals("[0, 1, 2, 3, 4]", new ArrayList<>(queue).toString());
+    }
+
+    @Test
+    void rejectsRemovalOfArbitraryElements() {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        assertThrows(UnsupportedOperationException.class, () -> queue.remove((Object) 2));
+        assertThrows(UnsupportedOperationException.class, () -> queue.removeAll(List.of(1)));
+        assertThrows(UnsupportedOperationException.class, () -> queue.retainAll(List.of(1)));
+        final Iterator<Integer> it = queue.iterator();
+        it.next();
+        assertThrows(UnsupportedOperationException.class, it::remove);
+        assertEquals(5, queue.size());
+        // clear() is built on poll() and remains supported.
+        queue.clear();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void preservesOrderBetweenProducerAndConsumer() throws InterruptedException {
+        final int count = 1_000_000;
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(64);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                final Integer e = i;
+                while (!queue.offer(e)) {
+                    Thread.yield();
+                }
+            }
+        });
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        producer.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        producer.start();
+
+        for (int i = 0; i < count; i++) {
+            Integer e;
+            while ((e = queue.poll()) == null) {
+                Thread.yield();
+            }
+            assertEquals(i, e);
+        }
+        producer.join();
+        assertNull(failure.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.simon2012.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class WaitStrategyTest {
+
+    static Stream<Arguments> queuesAndStrategies() {
+        final Stream<BiFunction<Integer, WaitStrategy, ConcurrentQueue<Integer>>> queues =
+                Stream.of(SpscArrayQueue::new, MpscArrayQueue::new);
+        return queues.flatMap(queue -> Stream.<Supplier<WaitStrategy>>of(
+                BusySpinWaitStrategy::new,
+                YieldingWaitStrategy::new,
+                () -> new ParkingWaitStrategy(1, TimeUnit.MILLISECONDS),
+                BlockingWaitStrategy::new)
+                .map(strategy -> Arguments.of(queue, strategy)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("queuesAndStrategies")
+    void takeReturnsWithoutWaitingWhenNotEmpty(BiFunction<Integer, WaitStrategy, ConcurrentQueue<Integer>> queues,
+            Supplier<WaitStrategy> strategies) throws InterruptedException {
+        final ConcurrentQueue<Integer> queue = queues.apply(4, strategies.get());
+        queue.offer(1);
+        queue.offer(2);
+        assertEquals(1, queue.take());
+        queue.awaitNotEmpty();
+        assertEquals(2, queue.take());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queuesAndStrategies")
+    void blockedTakeIsWokenByOffer(BiFunction<Integer, WaitStrategy, ConcurrentQueue<Integer>> queues,
+            Supplier<WaitStrategy> strategies) throws Exception {
+        final ConcurrentQueue<Integer> queue = queues.apply(4, strategies.get());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CompletableFuture<Integer> taken = new CompletableFuture<>();
+        final Thread consumer = new Thread(() -> {
+            started.countDown();
+            try {
+                taken.complete(queue.take());
+            } catch (Throwable t) {
+                taken.completeExceptionally(t);
+            }
+        });
+        consumer.start();
+        started.await();
+        // Give the consumer a chance to reach the strategy before the element arrives.
+        Thread.sleep(20);
+        queue.offer(42);
+        assertEquals(42, taken.get(20, TimeUnit.SECONDS));
+        consumer.join();
+        assertTrue(queue.isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("queuesAndStrategies")
+    void takeThrowsWhenInterrupted(BiFunction<Integer, WaitStrategy, ConcurrentQueue<Integer>> queues,
+            Supplier<WaitStrategy> strategies) throws InterruptedException {
+        final ConcurrentQueue<Integer> queue = queues.apply(4, strategies.get());
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final Thread consumer = new Thread(() -> {
+            try {
+                queue.take();
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        consumer.start();
+        Thread.sleep(20);
+        consumer.interrupt();
+        consumer.join();
+        assertTrue(thrown.get() instanceof InterruptedException, String.valueOf(thrown.get()));
+    }
+
+    @Test
+    void interruptedBeforeTakeThrowsOnlyWhenEmpty() throws InterruptedException {
+        final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4, new BlockingWaitStrategy());
+        queue.offer(1);
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(1, queue.take());
+            assertThrows(InterruptedException.class, queue::take);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void sharesStatelessStrategiesBetweenQueues() throws InterruptedException {
+        final WaitStrategy strategy = new YieldingWaitStrategy();
+        for (int i = 0; i < 3; i++) {
+            final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4, strategy);
+            final MpscArrayQueue<Integer> lambdaQueue = new MpscArrayQueue<>(4, (q, n) -> Thread.onSpinWait());
+            assertSame(strategy, queue.waitStrategy());
+            queue.offer(i);
+            lambdaQueue.offer(i);
+            assertEquals(i, queue.take());
+            assertEquals(i, lambdaQueue.take());
+        }
+        assertThrows(NullPointerException.class, () -> new MpscArrayQueue<Integer>(4, null));
+    }
+
+    @Test
+    void blockingStrategyRejectsSecondQueue() {
+        final BlockingWaitStrategy strategy = new BlockingWaitStrategy();
+        final SpscArrayQueue<Integer> first = new SpscArrayQueue<>(4, strategy);
+        final SpscArrayQueue<Integer> second = new SpscArrayQueue<>(4, strategy);
+        first.offer(1);
+        strategy.idle(first, 0);
+        strategy.idle(first, 1);
+        second.offer(1);
+        assertThrows(IllegalStateException.class, () -> strategy.idle(second, 0));
+    }
+}